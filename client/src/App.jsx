@@ -19,6 +19,8 @@ L.Marker.prototype.options.icon = DefaultIcon;
 
 // STOMP Client (for Java Spring Boot WebSocket)
 let stompClient = null;
+// Increasing per page load so the server can drop reordered location pings
+let locationSeq = 0;
 
 function MapClickEvents({ onLocationSelect, mode }) {
   useMapEvents({
@@ -29,6 +31,19 @@ function MapClickEvents({ onLocationSelect, mode }) {
   return null;
 }
 
+// Reports the visible map bounds so we only subscribe to the driver cells in view
+function MapViewportEvents({ onViewportChange }) {
+  const map = useMapEvents({
+    moveend() {
+      onViewportChange(map.getBounds());
+    },
+  });
+  useEffect(() => {
+    onViewportChange(map.getBounds());
+  }, [map, onViewportChange]);
+  return null;
+}
+
 const API_URL = 'http://localhost:3000/v1';
 
 export default function App() {
@@ -48,6 +63,10 @@ export default function App() {
   const [error, setError] = useState(null);
   const [rideHistory, setRideHistory] = useState([]);
   const [wsConnected, setWsConnected] = useState(false);
+  const [viewport, setViewport] = useState(null);
+
+  // Active driver cell subscriptions: cellId -> STOMP subscription
+  const cellSubscriptions = useRef(new Map());
 
   // OTP and Rating State
   const [otpInput, setOtpInput] = useState('');
@@ -61,6 +80,8 @@ export default function App() {
     // Initialize STOMP client
     stompClient = new Client({
       brokerURL: 'ws://localhost:3000/ws',
+      // Binds this session to our user id so ride offers can be addressed to us
+      connectHeaders: { userId },
       reconnectDelay: 5000,
       heartbeatIncoming: 4000,
       heartbeatOutgoing: 4000,
@@ -71,29 +92,38 @@ export default function App() {
         console.log('WebSocket Connected');
         setWsConnected(true);
 
-        // Subscribe to driver location updates
-        stompClient.subscribe('/topic/driver_location_updated', (message) => {
-          const driver = JSON.parse(message.body);
-          setDrivers(prev => {
-            const idx = prev.findIndex(d => d.id === driver.id);
-            if (idx > -1) {
-              const newDrivers = [...prev];
-              newDrivers[idx] = driver;
-              return newDrivers;
-            }
-            return [...prev, driver];
-          });
-        });
-
-        // Subscribe to ride requests (for drivers)
-        stompClient.subscribe('/topic/ride_requested', (message) => {
+        // Subscribe to ride offers addressed to this driver
+        stompClient.subscribe('/user/queue/ride_offers', (message) => {
           const newRide = JSON.parse(message.body);
-          console.log("New ride request received!", newRide);
+          console.log("New ride offer received!", newRide);
           // Always update the ride state - the UI will conditionally show based on role
           setStatusText(`New Ride Request: Earn $${newRide.price}`);
           setRide(newRide);
         });
 
+        // Offer taken by another driver or cancelled by the rider
+        stompClient.subscribe('/user/queue/ride_offer_withdrawn', (message) => {
+          const { rideId } = JSON.parse(message.body);
+          setRide(currentRide => {
+            if (!currentRide || currentRide.id !== rideId || currentRide.status !== 'requested') {
+              return currentRide;
+            }
+            setStatusText('Ride request no longer available.');
+            return null;
+          });
+        });
+
+        // Dispatch found no driver yet and will search again
+        stompClient.subscribe('/user/queue/ride_no_drivers', (message) => {
+          const { rideId } = JSON.parse(message.body);
+          setRide(currentRide => {
+            if (currentRide && currentRide.id === rideId && currentRide.status === 'requested') {
+              setStatusText('No drivers nearby yet. Still searching...');
+            }
+            return currentRide;
+          });
+        });
+
         // Subscribe to ride status updates
         stompClient.subscribe('/topic/ride_status_updated', (message) => {
           const updatedRide = JSON.parse(message.body);
@@ -141,6 +171,7 @@ export default function App() {
       },
       onDisconnect: () => {
         console.log('WebSocket Disconnected');
+        cellSubscriptions.current.clear();
         setWsConnected(false);
       },
       onStompError: (frame) => {
@@ -158,6 +189,64 @@ export default function App() {
     };
   }, []);
 
+  // Keep driver cell subscriptions in sync with the map viewport
+  useEffect(() => {
+    if (!wsConnected || !viewport || !stompClient) return;
+
+    const handleCellMessage = (message) => {
+      const events = JSON.parse(message.body);
+      setDrivers(prev => {
+        const next = [...prev];
+        for (const event of events) {
+          const idx = next.findIndex(d => d.id === event.driverId);
+          if (event.type === 'left') {
+            // Drop the driver unless it moved into another cell we are watching
+            if (idx > -1 && !cellSubscriptions.current.has(event.toCellId)) next.splice(idx, 1);
+            continue;
+          }
+          const driver = {
+            id: event.driverId,
+            name: `Driver ${event.driverId}`,
+            lat: event.lat,
+            lng: event.lng,
+            status: event.status,
+            tier: event.tier
+          };
+          if (idx > -1) next[idx] = driver;
+          else next.push(driver);
+        }
+        return next;
+      });
+    };
+
+    const params = new URLSearchParams({
+      minLat: viewport.getSouth(),
+      minLng: viewport.getWest(),
+      maxLat: viewport.getNorth(),
+      maxLng: viewport.getEast()
+    });
+
+    fetch(`${API_URL}/drivers/cells?${params}`)
+      .then(res => res.ok ? res.json() : null)
+      .then(data => {
+        if (!data || !stompClient?.connected) return;
+        const wanted = new Set(data.cells);
+        for (const [cellId, subscription] of cellSubscriptions.current) {
+          if (!wanted.has(cellId)) {
+            subscription.unsubscribe();
+            cellSubscriptions.current.delete(cellId);
+          }
+        }
+        for (const cellId of wanted) {
+          if (!cellSubscriptions.current.has(cellId)) {
+            cellSubscriptions.current.set(cellId,
+              stompClient.subscribe(`${data.topicPrefix}${cellId}`, handleCellMessage));
+          }
+        }
+      })
+      .catch(err => console.log('Failed to load viewport cells', err));
+  }, [viewport, wsConnected]);
+
   // Get initial location
   useEffect(() => {
     navigator.geolocation.getCurrentPosition(
@@ -211,6 +300,16 @@ export default function App() {
     const newLng = location.lng + (Math.random() - 0.5) * 0.01;
     setLocation({ lat: newLat, lng: newLng });
 
+    // Publish over the open STOMP session; the server identifies us from the CONNECT userId
+    if (stompClient?.connected) {
+      locationSeq += 1;
+      stompClient.publish({
+        destination: '/app/location',
+        body: JSON.stringify({ lat: newLat, lng: newLng, seq: locationSeq })
+      });
+      return;
+    }
+
     await fetch(`${API_URL}/drivers/${userId}/location`, {
       method: 'POST',
       headers: { 'Content-Type': 'application/json' },
@@ -376,6 +475,7 @@ export default function App() {
                 attribution='&copy; <a href="https://www.openstreetmap.org/copyright">OpenStreetMap</a> contributors &copy; <a href="https://carto.com/attributions">CARTO</a>'
               />
               <MapClickEvents onLocationSelect={handleMapClick} mode={role} />
+              <MapViewportEvents onViewportChange={setViewport} />
 
               {/* User Location */}
               <Marker position={location}>
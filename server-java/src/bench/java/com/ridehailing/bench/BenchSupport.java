@@ -0,0 +1,158 @@
+package com.ridehailing.bench;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.ridehailing.events.BusinessEventPublisher;
+import com.ridehailing.events.NoopBusinessEventSink;
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.location.LocationBroadcastFilter;
+import com.ridehailing.model.Driver;
+import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.persistence.DriverWriteBehindBuffer;
+import com.ridehailing.persistence.SqliteWriter;
+import com.ridehailing.service.SocketService;
+import com.ridehailing.wire.DriverHandles;
+import com.ridehailing.wire.LocationSubscriptions;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * In-memory stand-ins for the infrastructure behind the hot paths, wired the way
+ * Spring Boot wires the real beans but without Redis, a database or a broker.
+ */
+public final class BenchSupport {
+
+    private BenchSupport() {
+    }
+
+    /**
+     * ObjectMapper configured like the Spring Boot default
+     */
+    public static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    /**
+     * Messaging template with the broker's message converters and a channel that
+     * accepts and drops every message
+     */
+    public static SimpMessagingTemplate messagingTemplate() {
+        MappingJackson2MessageConverter jackson = new MappingJackson2MessageConverter();
+        jackson.setObjectMapper(objectMapper());
+        SimpMessagingTemplate template = new SimpMessagingTemplate(new DroppingChannel());
+        template.setMessageConverter(new CompositeMessageConverter(List.of(
+                new StringMessageConverter(), new ByteArrayMessageConverter(), jackson)));
+        return template;
+    }
+
+    public static SocketService socketService() {
+        return socketService(new LocationSubscriptions());
+    }
+
+    /**
+     * Socket service sending each update immediately (no tick) and unfiltered, so
+     * repeated sends of the same moves all reach the converters
+     */
+    public static SocketService socketService(LocationSubscriptions locationSubscriptions) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new SocketService(messagingTemplate(), meterRegistry, locationSubscriptions,
+                new DriverHandles(new DriverGridIndex(0.01, 300)),
+                new LocationBroadcastFilter(meterRegistry, false, 30, 10, 30, 10_000, 300), 0.05, 0, false);
+    }
+
+    /**
+     * Subscription state with one binary-format subscriber on each of the given cells
+     */
+    public static LocationSubscriptions binarySubscribers(List<String> cellIds) {
+        LocationSubscriptions subscriptions = new LocationSubscriptions();
+        for (int i = 0; i < cellIds.size(); i++) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+            accessor.setSessionId("bench-session");
+            accessor.setSubscriptionId("sub-" + i);
+            accessor.setDestination(LocationSubscriptions.BINARY_CELL_TOPIC_PREFIX + cellIds.get(i));
+            subscriptions.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), null);
+        }
+        return subscriptions;
+    }
+
+    /**
+     * Event publisher with the default (discarding) sink
+     */
+    public static BusinessEventPublisher eventPublisher() {
+        return new BusinessEventPublisher(new NoopBusinessEventSink(), new SimpleMeterRegistry(), 10_000, 500);
+    }
+
+    /**
+     * Write-behind buffer that only records; the benchmarks never flush it
+     */
+    public static DriverWriteBehindBuffer writeBehindBuffer() {
+        return new DriverWriteBehindBuffer(new JdbcTemplate(), sqliteWriter(), new SimpleMeterRegistry(), 500);
+    }
+
+    /**
+     * Writer with the default settings and no transaction manager; the benchmarks
+     * never submit to it
+     */
+    public static SqliteWriter sqliteWriter() {
+        return new SqliteWriter(new TransactionTemplate(), new SimpleMeterRegistry(), 10_000, 2, 256, 1000, 10_000);
+    }
+
+    public static Driver driver(String id) {
+        return Driver.builder()
+                .id(id)
+                .name("Driver " + id)
+                .lat(12.9716)
+                .lng(77.5946)
+                .status("online")
+                .averageRating(4.8)
+                .totalRatings(120)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    public static Ride ride(String id, Driver driver) {
+        return Ride.builder()
+                .id(id)
+                .riderId("rider-1")
+                .driver(driver)
+                .status(RideStatus.ASSIGNED)
+                .pickupLat(12.9716)
+                .pickupLng(77.5946)
+                .destLat(12.9352)
+                .destLng(77.6245)
+                .price(182.4)
+                .surgeFactor(1.5)
+                .distance(5.1)
+                .otp("4821")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static final class DroppingChannel implements MessageChannel {
+        private volatile Message<?> last;
+
+        @Override
+        public boolean send(Message<?> message, long timeout) {
+            last = message;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ridehailing.matching;
+
+import com.ridehailing.util.GeoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solve time of the assignment step alone versus batch size.
+ * Each ride gets its 8 nearest drivers as candidates; there are 1.5 drivers per ride.
+ * The exact solver is only measured up to 1000 rides since it grows cubically.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssignmentSolverBenchmark {
+
+    private static final int CANDIDATES_PER_RIDE = 8;
+
+    @State(Scope.Benchmark)
+    public static class SmallBatch {
+        @Param({"50", "100", "150", "300", "1000"})
+        public int batchSize;
+
+        int drivers;
+        CandidateEdges edges;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            drivers = batchSize * 3 / 2;
+            edges = buildEdges(batchSize, drivers);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class LargeBatch {
+        @Param({"2000", "5000"})
+        public int batchSize;
+
+        int drivers;
+        CandidateEdges edges;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            drivers = batchSize * 3 / 2;
+            edges = buildEdges(batchSize, drivers);
+        }
+    }
+
+    @Benchmark
+    public int[] exact(SmallBatch batch) {
+        return AssignmentSolver.exact(batch.batchSize, batch.drivers, batch.edges);
+    }
+
+    @Benchmark
+    public int[] greedy(SmallBatch batch) {
+        return AssignmentSolver.greedy(batch.batchSize, batch.drivers, batch.edges);
+    }
+
+    @Benchmark
+    public int[] greedyLarge(LargeBatch batch) {
+        return AssignmentSolver.greedy(batch.batchSize, batch.drivers, batch.edges);
+    }
+
+    static CandidateEdges buildEdges(int rides, int drivers) {
+        Random random = new Random(42);
+        double[] driverLat = new double[drivers];
+        double[] driverLng = new double[drivers];
+        for (int j = 0; j < drivers; j++) {
+            driverLat[j] = 17.30 + random.nextDouble() * 0.3;
+            driverLng[j] = 78.30 + random.nextDouble() * 0.3;
+        }
+
+        CandidateEdges edges = new CandidateEdges(rides * CANDIDATES_PER_RIDE);
+        double[] distances = new double[drivers];
+        Integer[] order = new Integer[drivers];
+        for (int i = 0; i < rides; i++) {
+            double lat = 17.30 + random.nextDouble() * 0.3;
+            double lng = 78.30 + random.nextDouble() * 0.3;
+            for (int j = 0; j < drivers; j++) {
+                distances[j] = GeoUtils.getDistance(lat, lng, driverLat[j], driverLng[j]);
+                order[j] = j;
+            }
+            Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+            for (int c = 0; c < CANDIDATES_PER_RIDE; c++) {
+                edges.add(i, order[c], distances[order[c]]);
+            }
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ridehailing.matching;
+
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.model.Ride;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full matching solve per tick: candidate lookup in the grid index plus assignment,
+ * against a 20k-driver city, versus the number of pending rides.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchingTickBenchmark {
+
+    private static final int DRIVERS = 20_000;
+
+    @Param({"100", "500", "1000", "2000", "5000"})
+    public int batchSize;
+
+    private MatchingEngine engine;
+    private List<MatchingEngine.PendingRide> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        DriverGridIndex index = new DriverGridIndex(0.01, 300);
+        for (int j = 0; j < DRIVERS; j++) {
+            index.updateLocation("driver-" + j, 17.30 + random.nextDouble() * 0.3,
+                    78.30 + random.nextDouble() * 0.3, "economy");
+        }
+
+        engine = new MatchingEngine(index, null, null, new SimpleMeterRegistry(),
+                false, 1500, 10_000, 8, 5.0, 150);
+
+        batch = new ArrayList<>(batchSize);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < batchSize; i++) {
+            Ride ride = Ride.builder()
+                    .id("ride-" + i)
+                    .pickupLat(17.30 + random.nextDouble() * 0.3)
+                    .pickupLng(78.30 + random.nextDouble() * 0.3)
+                    .tier("economy")
+                    .build();
+            batch.add(new MatchingEngine.PendingRide(ride, now));
+        }
+    }
+
+    @Benchmark
+    public int[] solve() {
+        return engine.solve(batch, new ArrayList<>());
+    }
+}
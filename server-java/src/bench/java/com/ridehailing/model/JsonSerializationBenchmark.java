@@ -0,0 +1,71 @@
+package com.ridehailing.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.bench.BenchSupport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the entities returned by the REST API and pushed over
+ * STOMP, with an ObjectMapper configured like Spring Boot's.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private Driver driver;
+    private Ride ride;
+    private Receipt receipt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = BenchSupport.objectMapper();
+        driver = BenchSupport.driver("driver-1");
+        ride = BenchSupport.ride("ride-1", driver);
+        receipt = Receipt.builder()
+                .id("receipt-1")
+                .ride(ride)
+                .rideId(ride.getId())
+                .baseFare(50.0)
+                .distanceFare(61.2)
+                .surgeFare(55.6)
+                .totalFare(166.8)
+                .paymentStatus("completed")
+                .transactionId("txn-1")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Benchmark
+    public byte[] driver() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(driver);
+    }
+
+    @Benchmark
+    public byte[] ride() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(ride);
+    }
+
+    @Benchmark
+    public byte[] receipt() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(receipt);
+    }
+}
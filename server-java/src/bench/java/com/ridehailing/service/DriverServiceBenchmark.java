@@ -0,0 +1,83 @@
+package com.ridehailing.service;
+
+import com.ridehailing.bench.BenchSupport;
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.location.InMemoryDriverLocationStore;
+import com.ridehailing.model.Driver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full DriverService.updateLocation call: grid index, location store, write-behind
+ * record and cell fan-out, with the in-memory location store, an unflushed
+ * write-behind buffer and a dropping message channel standing in for Redis, SQLite
+ * and the broker. 10k drivers jitter around a city.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverServiceBenchmark {
+
+    private static final int DRIVERS = 10_000;
+
+    private DriverService driverService;
+    private String[] driverIds;
+    private double[] lats;
+    private double[] lngs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        driverService = new DriverService(null, BenchSupport.socketService(), new DriverGridIndex(0.01, 300),
+                new InMemoryDriverLocationStore(), BenchSupport.writeBehindBuffer(), new SimpleMeterRegistry(),
+                BenchSupport.sqliteWriter());
+        driverService.registerMetrics();
+
+        Random random = new Random(42);
+        driverIds = new String[DRIVERS];
+        lats = new double[DRIVERS];
+        lngs = new double[DRIVERS];
+        for (int i = 0; i < DRIVERS; i++) {
+            driverIds[i] = "driver-" + i;
+            lats[i] = 12.9716 + (random.nextDouble() - 0.5) * 0.3;
+            lngs[i] = 77.5946 + (random.nextDouble() - 0.5) * 0.3;
+            driverService.updateLocation(driverIds[i], lats[i], lngs[i]);
+        }
+    }
+
+    @Benchmark
+    public Driver updateLocation() {
+        return ping();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Driver updateLocation4Threads() {
+        return ping();
+    }
+
+    private Driver ping() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(DRIVERS);
+        return driverService.updateLocation(driverIds[i],
+                lats[i] + (random.nextDouble() - 0.5) * 0.001,
+                lngs[i] + (random.nextDouble() - 0.5) * 0.001);
+    }
+}
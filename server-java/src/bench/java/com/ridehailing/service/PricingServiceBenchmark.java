@@ -0,0 +1,98 @@
+package com.ridehailing.service;
+
+import com.ridehailing.bench.BenchSupport;
+import com.ridehailing.dto.FareBreakdown;
+import com.ridehailing.dto.FareEstimate;
+import com.ridehailing.dto.FareEstimateRequest;
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.pricing.DemandCounters;
+import com.ridehailing.pricing.QuoteCache;
+import com.ridehailing.pricing.ZoneDemandTracker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pricing on the ride creation path. Redis is stubbed out: the demand counters get
+ * an unconnected template and are never flushed. Surge is read from a snapshot
+ * computed over a city with 5k online drivers and 2k recent requests.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingServiceBenchmark {
+
+    private PricingService pricingService;
+    private FareEstimateRequest estimateRequest;
+
+    private double pickupLat = 12.9716;
+    private double pickupLng = 77.5946;
+    private double distance = 5.1;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        DriverGridIndex index = new DriverGridIndex(0.01, 300);
+        ZoneDemandTracker tracker = new ZoneDemandTracker(index, 0.02, 300, 10, 0.25);
+        DemandCounters counters = new DemandCounters(new StringRedisTemplate(), null, null, null, meterRegistry);
+        QuoteCache quoteCache = new QuoteCache(meterRegistry, 120, 100_000);
+        pricingService = new PricingService(counters, tracker, meterRegistry, quoteCache,
+                BenchSupport.eventPublisher());
+        pricingService.registerSurgeMetrics();
+
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 5000; i++) {
+            index.updateLocation("driver-" + i, pickupLat + (random.nextDouble() - 0.5) * 0.3,
+                    pickupLng + (random.nextDouble() - 0.5) * 0.3, null);
+        }
+        for (int i = 0; i < 2000; i++) {
+            tracker.recordRequest(pickupLat + (random.nextDouble() - 0.5) * 0.3,
+                    pickupLng + (random.nextDouble() - 0.5) * 0.3, "economy", now);
+        }
+        pricingService.refreshSurgeSnapshot();
+
+        estimateRequest = new FareEstimateRequest();
+        estimateRequest.setPickupLat(pickupLat);
+        estimateRequest.setPickupLng(pickupLng);
+        estimateRequest.setDestLat(12.9352);
+        estimateRequest.setDestLng(77.6245);
+    }
+
+    @Benchmark
+    public FareBreakdown calculateFare() {
+        return pricingService.calculateFare(distance, "premium", 1.5);
+    }
+
+    @Benchmark
+    public double calculateSurgeFactor() {
+        return pricingService.calculateSurgeFactor(pickupLat, pickupLng, "economy");
+    }
+
+    @Benchmark
+    public FareEstimate estimateFares() {
+        return pricingService.estimateFares(estimateRequest);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void refreshSurgeSnapshot() {
+        pricingService.refreshSurgeSnapshot();
+    }
+}
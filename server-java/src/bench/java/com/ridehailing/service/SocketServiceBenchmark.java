@@ -0,0 +1,91 @@
+package com.ridehailing.service;
+
+import com.ridehailing.bench.BenchSupport;
+import com.ridehailing.geo.GeoGrid;
+import com.ridehailing.model.Driver;
+import com.ridehailing.model.Ride;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SocketService message building and conversion through the broker's converters,
+ * into a channel that drops every message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SocketServiceBenchmark {
+
+    private SocketService socketService;
+    private SocketService binarySocketService;
+    private Driver driver;
+    private Ride ride;
+    private List<SocketService.DriverMove> batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        socketService = BenchSupport.socketService();
+        driver = BenchSupport.driver("driver-1");
+        ride = BenchSupport.ride("ride-1", driver);
+
+        // 100 drivers moving inside a handful of broadcast cells
+        batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Driver moving = BenchSupport.driver("driver-" + i);
+            moving.setLat(12.95 + (i % 10) * 0.01);
+            moving.setLng(77.55 + (i / 10) * 0.01);
+            batch.add(new SocketService.DriverMove(moving, moving.getLat() - 0.0005, moving.getLng()));
+        }
+
+        // Same batch with a binary subscriber on every cell it touches (JSON + binary frames)
+        GeoGrid grid = new GeoGrid(socketService.getCellSizeDeg());
+        List<String> cellIds = new ArrayList<>();
+        for (SocketService.DriverMove move : batch) {
+            cellIds.add(GeoGrid.cellId(grid.cellOf(move.driver().getLat(), move.driver().getLng())));
+        }
+        binarySocketService = BenchSupport.socketService(BenchSupport.binarySubscribers(cellIds));
+    }
+
+    @Benchmark
+    public void driverLocationUpdated() {
+        socketService.sendDriverLocationUpdated(driver, 12.9715, 77.5945);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void driverLocationsUpdatedBatch100() {
+        socketService.sendDriverLocationsUpdated(batch);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void driverLocationsUpdatedBatch100WithBinary() {
+        binarySocketService.sendDriverLocationsUpdated(batch);
+    }
+
+    @Benchmark
+    public void rideStatusUpdated() {
+        socketService.sendRideStatusUpdated(ride);
+    }
+
+    @Benchmark
+    public void rideOffer() {
+        socketService.sendRideOffer("driver-1", ride);
+    }
+}
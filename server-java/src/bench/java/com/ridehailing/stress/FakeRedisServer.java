@@ -0,0 +1,273 @@
+package com.ridehailing.stress;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal in-process Redis stand-in speaking RESP2 on a local port.
+ *
+ * Covers the string, hash and key commands the server issues, the writes and
+ * pruning of the Redis location store (GEOADD is kept as a plain sorted set, so
+ * GEOSEARCH is not available), plus the connection handshake Lettuce performs.
+ * State is a single map guarded by the server's monitor; this is a load-test
+ * fixture, not a cache.
+ */
+public class FakeRedisServer implements Closeable {
+
+    private final ServerSocket serverSocket;
+    private final Map<String, Object> data = new HashMap<>();
+    private volatile boolean running = true;
+
+    public FakeRedisServer() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::acceptLoop, "fake-redis-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                Thread connection = new Thread(() -> serve(socket), "fake-redis-connection");
+                connection.setDaemon(true);
+                connection.start();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Fake Redis accept failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            while (running) {
+                List<String> command = readCommand(in);
+                reply(out, execute(command));
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (EOFException e) {
+            // Client closed the connection
+        } catch (IOException e) {
+            if (running) {
+                System.err.println("Fake Redis connection failed: " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized Object execute(List<String> command) {
+        String name = command.get(0).toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "PING":
+                return new Status("PONG");
+            case "SELECT":
+            case "CLIENT":
+            case "QUIT":
+                return new Status("OK");
+            case "INFO":
+                return "# Server\r\nredis_version:7.0.0\r\n";
+            case "GET": {
+                Object value = data.get(command.get(1));
+                return value instanceof String ? value : null;
+            }
+            case "SET":
+                data.put(command.get(1), command.get(2));
+                return new Status("OK");
+            case "INCR":
+                return incrBy(command.get(1), 1);
+            case "DECR":
+                return incrBy(command.get(1), -1);
+            case "INCRBY":
+                return incrBy(command.get(1), Long.parseLong(command.get(2)));
+            case "DECRBY":
+                return incrBy(command.get(1), -Long.parseLong(command.get(2)));
+            case "DEL": {
+                long removed = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    removed += data.remove(command.get(i)) != null ? 1 : 0;
+                }
+                return removed;
+            }
+            case "EXISTS":
+                return data.containsKey(command.get(1)) ? 1L : 0L;
+            case "EXPIRE":
+                // Expiry is not simulated; runs are short
+                return data.containsKey(command.get(1)) ? 1L : 0L;
+            case "HSET":
+            case "HMSET": {
+                Map<String, String> hash = hash(command.get(1));
+                long added = 0;
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    added += hash.put(command.get(i), command.get(i + 1)) == null ? 1 : 0;
+                }
+                return "HMSET".equals(name) ? new Status("OK") : added;
+            }
+            case "HGET":
+                return hash(command.get(1)).get(command.get(2));
+            case "HMGET": {
+                Map<String, String> hash = hash(command.get(1));
+                List<Object> values = new ArrayList<>();
+                for (int i = 2; i < command.size(); i++) {
+                    values.add(hash.get(command.get(i)));
+                }
+                return values;
+            }
+            case "GEOADD": {
+                // GEOADD key lng lat member [lng lat member ...]
+                Map<String, Double> set = sortedSet(command.get(1));
+                long added = 0;
+                for (int i = 2; i + 2 < command.size(); i += 3) {
+                    added += set.put(command.get(i + 2), 0.0) == null ? 1 : 0;
+                }
+                return added;
+            }
+            case "ZADD": {
+                Map<String, Double> set = sortedSet(command.get(1));
+                long added = 0;
+                for (int i = 2; i + 1 < command.size(); i += 2) {
+                    added += set.put(command.get(i + 1), Double.parseDouble(command.get(i))) == null ? 1 : 0;
+                }
+                return added;
+            }
+            case "ZRANGEBYSCORE": {
+                double min = Double.parseDouble(command.get(2));
+                double max = Double.parseDouble(command.get(3));
+                List<Object> members = new ArrayList<>();
+                sortedSet(command.get(1)).forEach((member, score) -> {
+                    if (score >= min && score <= max) {
+                        members.add(member);
+                    }
+                });
+                return members;
+            }
+            case "ZREM": {
+                Map<String, Double> set = sortedSet(command.get(1));
+                long removed = 0;
+                for (int i = 2; i < command.size(); i++) {
+                    removed += set.remove(command.get(i)) != null ? 1 : 0;
+                }
+                return removed;
+            }
+            default:
+                return new Error("ERR unknown command '" + command.get(0) + "'");
+        }
+    }
+
+    private long incrBy(String key, long delta) {
+        Object current = data.get(key);
+        long value = (current instanceof String s ? Long.parseLong(s) : 0) + delta;
+        data.put(key, Long.toString(value));
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, String> hash(String key) {
+        Object value = data.get(key);
+        if (!(value instanceof Map)) {
+            value = new HashMap<String, String>();
+            data.put(key, value);
+        }
+        return (Map<String, String>) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Double> sortedSet(String key) {
+        Object value = data.get(key);
+        if (!(value instanceof Map)) {
+            value = new HashMap<String, Double>();
+            data.put(key, value);
+        }
+        return (Map<String, Double>) value;
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (!header.startsWith("*")) {
+            return List.of(header.trim().split("\\s+"));
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> parts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] bytes = in.readNBytes(length);
+            readLine(in);
+            parts.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return parts;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            line.write(b);
+        }
+        in.read();
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void reply(OutputStream out, Object value) throws IOException {
+        if (value == null) {
+            write(out, "$-1\r\n");
+        } else if (value instanceof Status status) {
+            write(out, "+" + status.text() + "\r\n");
+        } else if (value instanceof Error error) {
+            write(out, "-" + error.text() + "\r\n");
+        } else if (value instanceof Long number) {
+            write(out, ":" + number + "\r\n");
+        } else if (value instanceof List<?> list) {
+            write(out, "*" + list.size() + "\r\n");
+            for (Object item : list) {
+                reply(out, item);
+            }
+        } else {
+            byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+            write(out, "$" + bytes.length + "\r\n");
+            out.write(bytes);
+            write(out, "\r\n");
+        }
+    }
+
+    private static void write(OutputStream out, String text) throws IOException {
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private record Status(String text) {
+    }
+
+    private record Error(String text) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.ridehailing.stress;
+
+import java.util.Arrays;
+
+/**
+ * Latency samples and status counts for one endpoint or delivery path
+ */
+final class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int count;
+    private long ok;
+    private long conflicts;
+    private long errors;
+
+    /**
+     * @param status HTTP status of the call, or -1 if it failed without a response
+     */
+    synchronized void record(long nanos, int status) {
+        if (status / 100 == 2) {
+            ok++;
+        } else if (status == 409) {
+            conflicts++;
+        } else {
+            errors++;
+        }
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, count * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    static String header(String title, String rateLabel) {
+        return String.format("%-45s %8s %8s %6s %6s %8s %9s %9s %9s",
+                title, "count", "2xx", "409", "err", rateLabel, "p50 ms", "p95 ms", "p99 ms");
+    }
+
+    /**
+     * One report line, aligned with {@link #header}
+     */
+    synchronized String row(String name, double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        return String.format("%-45s %8d %8d %6d %6d %8.1f %9.2f %9.2f %9.2f",
+                name, count, ok, conflicts, errors, count / elapsedSeconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99));
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
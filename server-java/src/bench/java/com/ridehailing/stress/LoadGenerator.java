@@ -0,0 +1,435 @@
+package com.ridehailing.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.RideHailingApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.File;
+import java.lang.reflect.Type;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * End-to-end load generator.
+ *
+ * Boots the app on a random port against a throwaway SQLite file, an in-process
+ * Redis stand-in and the in-memory location store, then simulates:
+ * - drivers pinging their location on a fixed interval with a seeded random walk,
+ *   each holding a STOMP session that receives ride offers and, with a seeded
+ *   probability, accepts, starts the trip with the OTP and ends it;
+ * - riders creating rides, polling them and cancelling unassigned ones;
+ * - observer STOMP clients subscribed to every driver cell topic in the area and to
+ *   ride status updates.
+ * Prints per-endpoint throughput and p50/p95/p99 latency plus WebSocket delivery lag.
+ *
+ * All positions, choices and think times come from per-actor Randoms derived from
+ * the seed, so two runs with the same seed issue the same workload; only thread
+ * scheduling differs.
+ *
+ * Run: mvn -Pbench test-compile exec:exec -Dbench.main=com.ridehailing.stress.LoadGenerator
+ * When launching the class directly, size the run with -Dloadgen.seed, .drivers,
+ * .riders, .observers, .ping-interval-ms, .duration-seconds, .accept-probability
+ * .trip-seconds and .ping-transport (http, or stomp to publish pings on /app/location).
+ */
+public class LoadGenerator {
+
+    private static final double CENTER_LAT = 12.9716;
+    private static final double CENTER_LNG = 77.5946;
+    private static final double HALF_SPAN_DEG = 0.1;
+    private static final long RIDE_WAIT_MS = 30_000;
+
+    private final long seed = Long.getLong("loadgen.seed", 42);
+    private final int drivers = Integer.getInteger("loadgen.drivers", 200);
+    private final int riders = Integer.getInteger("loadgen.riders", 50);
+    private final int observers = Integer.getInteger("loadgen.observers", 5);
+    private final long pingIntervalMs = Long.getLong("loadgen.ping-interval-ms", 1000);
+    private final long durationSeconds = Long.getLong("loadgen.duration-seconds", 60);
+    private final double acceptProbability = Double.parseDouble(System.getProperty("loadgen.accept-probability", "0.7"));
+    private final long tripSeconds = Long.getLong("loadgen.trip-seconds", 5);
+    private final boolean stompPings = "stomp".equals(System.getProperty("loadgen.ping-transport", "http"));
+
+    private final String baseUrl;
+    private final String wsUrl;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final WebSocketStompClient stompClient;
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(32);
+
+    private final Map<String, LatencyRecorder> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> websocket = new ConcurrentHashMap<>();
+    private final Map<String, SentPing> lastPing = new ConcurrentHashMap<>();
+    private final Map<String, Long> rideRequestedAt = new ConcurrentHashMap<>();
+    private final Map<String, Long> acceptSentAt = new ConcurrentHashMap<>();
+    private final AtomicLong ridesCompleted = new AtomicLong();
+    private final AtomicLong ridesCancelled = new AtomicLong();
+    private final List<StompSession> sessions = new ArrayList<>();
+
+    private volatile long deadline;
+
+    public LoadGenerator(String baseUrl, String wsUrl) {
+        this.baseUrl = baseUrl;
+        this.wsUrl = wsUrl;
+        this.stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        this.stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    public static void main(String[] args) throws Exception {
+        File db = File.createTempFile("loadgen", ".db");
+        db.deleteOnExit();
+
+        try (FakeRedisServer redis = new FakeRedisServer()) {
+            ConfigurableApplicationContext context = SpringApplication.run(RideHailingApplication.class,
+                    "--spring.datasource.url=jdbc:sqlite:" + db.getAbsolutePath(),
+                    "--spring.data.redis.host=127.0.0.1",
+                    "--spring.data.redis.port=" + redis.getPort(),
+                    "--server.port=0",
+                    "--ridehailing.location-store=memory",
+                    "--spring.jpa.show-sql=false",
+                    "--logging.level.com.ridehailing=WARN",
+                    "--logging.level.org.springframework.web.socket=WARN");
+            try {
+                String port = context.getEnvironment().getProperty("local.server.port");
+                new LoadGenerator("http://localhost:" + port + "/v1", "ws://localhost:" + port + "/ws").run();
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        System.out.printf("Load run: seed=%d drivers=%d riders=%d observers=%d pingIntervalMs=%d durationSeconds=%d%n",
+                seed, drivers, riders, observers, pingIntervalMs, durationSeconds);
+
+        List<SimDriver> fleet = new ArrayList<>();
+        for (int i = 0; i < drivers; i++) {
+            SimDriver driver = new SimDriver("sim-driver-" + i, new Random(seed * 31 + i));
+            driver.ping();
+            driver.connect();
+            fleet.add(driver);
+        }
+        for (int i = 0; i < observers; i++) {
+            connectObserver(i);
+        }
+
+        long started = System.nanoTime();
+        deadline = System.currentTimeMillis() + durationSeconds * 1000;
+        for (SimDriver driver : fleet) {
+            long initialDelay = (long) (driver.random.nextDouble() * pingIntervalMs);
+            scheduler.scheduleAtFixedRate(driver::pingSafely, initialDelay, pingIntervalMs, TimeUnit.MILLISECONDS);
+        }
+        List<Thread> riderThreads = new ArrayList<>();
+        for (int i = 0; i < riders; i++) {
+            Rider rider = new Rider("sim-rider-" + i, new Random(seed * 17 + i));
+            Thread thread = new Thread(rider::run, rider.id);
+            thread.setDaemon(true);
+            thread.start();
+            riderThreads.add(thread);
+        }
+
+        for (Thread thread : riderThreads) {
+            thread.join(durationSeconds * 1000 + RIDE_WAIT_MS + 5000);
+        }
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        for (StompSession session : sessions) {
+            if (session.isConnected()) {
+                session.disconnect();
+            }
+        }
+        stompClient.stop();
+        report(elapsedSeconds);
+    }
+
+    private void connectObserver(int index) throws Exception {
+        StompSession session = connect("sim-observer-" + index);
+        JsonNode cells = mapper.readTree(http.send(HttpRequest.newBuilder(URI.create(String.format(
+                "%s/drivers/cells?minLat=%f&minLng=%f&maxLat=%f&maxLng=%f", baseUrl,
+                CENTER_LAT - HALF_SPAN_DEG, CENTER_LNG - HALF_SPAN_DEG,
+                CENTER_LAT + HALF_SPAN_DEG, CENTER_LNG + HALF_SPAN_DEG))).GET().build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+
+        for (JsonNode cell : cells.path("cells")) {
+            session.subscribe(cells.path("topicPrefix").asText() + cell.asText(), new JsonHandler(events -> {
+                long now = System.nanoTime();
+                for (JsonNode event : events) {
+                    if (!"location".equals(event.path("type").asText())) {
+                        continue;
+                    }
+                    SentPing sent = lastPing.get(event.path("driverId").asText());
+                    if (sent != null && sent.lat() == event.path("lat").asDouble()
+                            && sent.lng() == event.path("lng").asDouble()) {
+                        recorder(websocket, "driver location (ping sent -> observer)").record(now - sent.nanos(), 200);
+                    }
+                }
+            }));
+        }
+        session.subscribe("/topic/ride_status_updated", new JsonHandler(ride -> {
+            Long sentAt = "assigned".equals(ride.path("status").asText())
+                    ? acceptSentAt.get(ride.path("id").asText()) : null;
+            if (sentAt != null) {
+                recorder(websocket, "ride assigned (accept sent -> observer)").record(System.nanoTime() - sentAt, 200);
+            }
+        }));
+    }
+
+    private StompSession connect(String userId) throws Exception {
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("userId", userId);
+        StompSession session = stompClient.connectAsync(wsUrl, (WebSocketHttpHeaders) null, connectHeaders,
+                new StompSessionHandlerAdapter() {
+                }).get(10, TimeUnit.SECONDS);
+        synchronized (sessions) {
+            sessions.add(session);
+        }
+        return session;
+    }
+
+    private JsonNode post(String endpoint, String path, Object body) {
+        try {
+            return send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.writeValueAsString(body)))
+                    .build());
+        } catch (Exception e) {
+            recorder(endpoints, endpoint).record(0, -1);
+            return null;
+        }
+    }
+
+    private JsonNode get(String endpoint, String path) {
+        return send(endpoint, HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build());
+    }
+
+    /**
+     * Send a request and record its latency; returns the body for 2xx, else null
+     */
+    private JsonNode send(String endpoint, HttpRequest request) {
+        long began = System.nanoTime();
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            recorder(endpoints, endpoint).record(System.nanoTime() - began, response.statusCode());
+            return response.statusCode() / 100 == 2 ? mapper.readTree(response.body()) : null;
+        } catch (Exception e) {
+            recorder(endpoints, endpoint).record(System.nanoTime() - began, -1);
+            return null;
+        }
+    }
+
+    private static LatencyRecorder recorder(Map<String, LatencyRecorder> recorders, String name) {
+        return recorders.computeIfAbsent(name, key -> new LatencyRecorder());
+    }
+
+    private void report(double elapsedSeconds) {
+        System.out.printf("%nLoad run finished in %.1fs: ridesCompleted=%d, ridesCancelled=%d%n",
+                elapsedSeconds, ridesCompleted.get(), ridesCancelled.get());
+        System.out.println();
+        System.out.println(LatencyRecorder.header("endpoint", "req/s"));
+        for (Map.Entry<String, LatencyRecorder> entry : new TreeMap<>(endpoints).entrySet()) {
+            System.out.println(entry.getValue().row(entry.getKey(), elapsedSeconds));
+        }
+        System.out.println();
+        System.out.println(LatencyRecorder.header("websocket delivery lag", "msg/s"));
+        for (Map.Entry<String, LatencyRecorder> entry : new TreeMap<>(websocket).entrySet()) {
+            System.out.println(entry.getValue().row(entry.getKey(), elapsedSeconds));
+        }
+    }
+
+    private final class SimDriver {
+        private final String id;
+        private final Random random;
+        private double lat;
+        private double lng;
+        private long seq;
+        private volatile StompSession session;
+        private volatile boolean busy;
+
+        private SimDriver(String id, Random random) {
+            this.id = id;
+            this.random = random;
+            this.lat = CENTER_LAT + (random.nextDouble() * 2 - 1) * HALF_SPAN_DEG;
+            this.lng = CENTER_LNG + (random.nextDouble() * 2 - 1) * HALF_SPAN_DEG;
+        }
+
+        private void connect() throws Exception {
+            session = LoadGenerator.this.connect(id);
+            session.subscribe("/user/queue/ride_offers", new JsonHandler(this::onOffer));
+        }
+
+        private void pingSafely() {
+            if (System.currentTimeMillis() < deadline) {
+                ping();
+            }
+        }
+
+        private void ping() {
+            double nextLat;
+            double nextLng;
+            long nextSeq;
+            synchronized (random) {
+                lat += (random.nextDouble() - 0.5) * 0.001;
+                lng += (random.nextDouble() - 0.5) * 0.001;
+                nextLat = lat;
+                nextLng = lng;
+                nextSeq = ++seq;
+            }
+            lastPing.put(id, new SentPing(nextLat, nextLng, System.nanoTime()));
+            if (stompPings) {
+                // Fire and forget; delivery shows up as observer lag
+                session.send("/app/location", Map.of("lat", nextLat, "lng", nextLng, "seq", nextSeq));
+                return;
+            }
+            post("POST /v1/drivers/{id}/location", "/drivers/" + id + "/location",
+                    Map.of("lat", nextLat, "lng", nextLng));
+        }
+
+        private void onOffer(JsonNode ride) {
+            Long requestedAt = rideRequestedAt.get(ride.path("riderId").asText());
+            if (requestedAt != null) {
+                recorder(websocket, "ride offer (create sent -> driver)").record(System.nanoTime() - requestedAt, 200);
+            }
+            boolean accept;
+            long thinkMs;
+            synchronized (random) {
+                accept = random.nextDouble() < acceptProbability;
+                thinkMs = 100 + random.nextInt(500);
+            }
+            if (!accept || busy || System.currentTimeMillis() >= deadline) {
+                return;
+            }
+            String rideId = ride.path("id").asText();
+            scheduler.schedule(() -> accept(rideId), thinkMs, TimeUnit.MILLISECONDS);
+        }
+
+        private void accept(String rideId) {
+            if (busy) {
+                return;
+            }
+            acceptSentAt.putIfAbsent(rideId, System.nanoTime());
+            JsonNode accepted = post("POST /v1/drivers/{id}/accept", "/drivers/" + id + "/accept",
+                    Map.of("rideId", rideId));
+            if (accepted == null) {
+                return;
+            }
+            busy = true;
+            String otp = accepted.path("otp").asText();
+            scheduler.schedule(() -> {
+                post("POST /v1/trips/{id}/start", "/trips/" + rideId + "/start", Map.of("otp", otp));
+                scheduler.schedule(() -> {
+                    if (post("POST /v1/trips/{id}/end", "/trips/" + rideId + "/end", Map.of()) != null) {
+                        ridesCompleted.incrementAndGet();
+                    }
+                    busy = false;
+                }, tripSeconds, TimeUnit.SECONDS);
+            }, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    private final class Rider {
+        private final String id;
+        private final Random random;
+
+        private Rider(String id, Random random) {
+            this.id = id;
+            this.random = random;
+        }
+
+        private void run() {
+            try {
+                Thread.sleep(random.nextInt(2000));
+                while (System.currentTimeMillis() < deadline) {
+                    requestRide();
+                    Thread.sleep(1000 + random.nextInt(2000));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void requestRide() throws InterruptedException {
+            Map<String, Object> body = Map.of(
+                    "riderId", id,
+                    "pickupLat", CENTER_LAT + (random.nextDouble() * 2 - 1) * HALF_SPAN_DEG,
+                    "pickupLng", CENTER_LNG + (random.nextDouble() * 2 - 1) * HALF_SPAN_DEG,
+                    "destLat", CENTER_LAT + (random.nextDouble() * 2 - 1) * HALF_SPAN_DEG,
+                    "destLng", CENTER_LNG + (random.nextDouble() * 2 - 1) * HALF_SPAN_DEG);
+            rideRequestedAt.put(id, System.nanoTime());
+            JsonNode ride = post("POST /v1/rides", "/rides", body);
+            if (ride == null) {
+                return;
+            }
+            String rideId = ride.path("id").asText();
+
+            long waitUntil = System.currentTimeMillis() + RIDE_WAIT_MS;
+            String status = "requested";
+            while (System.currentTimeMillis() < waitUntil) {
+                Thread.sleep(1000);
+                JsonNode current = get("GET /v1/rides/{id}", "/rides/" + rideId);
+                status = current != null ? current.path("status").asText() : status;
+                if ("completed".equals(status) || "cancelled".equals(status)) {
+                    return;
+                }
+                if ("requested".equals(status) && System.currentTimeMillis() > waitUntil - RIDE_WAIT_MS / 2) {
+                    break;
+                }
+            }
+            if ("requested".equals(status)
+                    && post("POST /v1/rides/{id}/cancel", "/rides/" + rideId + "/cancel", Map.of()) != null) {
+                ridesCancelled.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * STOMP handler that decodes JSON payloads
+     */
+    private static final class JsonHandler implements StompFrameHandler {
+        private final Consumer<JsonNode> consumer;
+
+        private JsonHandler(Consumer<JsonNode> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return JsonNode.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            consumer.accept((JsonNode) payload);
+        }
+    }
+
+    private record SentPing(double lat, double lng, long nanos) {
+    }
+}
@@ -0,0 +1,262 @@
+package com.ridehailing.stress;
+
+import com.ridehailing.RideHailingApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Platform vs virtual thread request handling under a fleet of pinging drivers.
+ *
+ * For each mode the server runs in a child JVM with spring.threads.virtual.enabled
+ * set accordingly, the Redis location store pointed at FakeRedisServer (so every
+ * ping makes a blocking Lettuce round trip) and a throwaway SQLite file. This JVM
+ * plays the drivers: each posts its location on a fixed interval with at most one
+ * ping in flight; a ping that falls due while the previous one is still outstanding
+ * is counted as skipped. Reports ping latency, throughput, skipped pings and the
+ * server's peak platform thread count over the measurement window.
+ *
+ * Run: mvn -Pbench test-compile exec:exec -Dbench.main=com.ridehailing.stress.PingConcurrencyStress
+ * When launching the class directly, size the run with -Dpingstress.drivers (10000),
+ * .ping-interval-ms, .warmup-seconds, .duration-seconds and .modes (platform,virtual).
+ * Virtual threads need the server on Java 21+; point -Dpingstress.java at a Java 21
+ * binary when the harness itself runs on an older JDK.
+ */
+public class PingConcurrencyStress {
+
+    private static final double CENTER_LAT = 12.9716;
+    private static final double CENTER_LNG = 77.5946;
+
+    private final int drivers = Integer.getInteger("pingstress.drivers", 10_000);
+    private final long pingIntervalMs = Long.getLong("pingstress.ping-interval-ms", 1000);
+    private final long warmupSeconds = Long.getLong("pingstress.warmup-seconds", 10);
+    private final long durationSeconds = Long.getLong("pingstress.duration-seconds", 30);
+    private final long seed = Long.getLong("pingstress.seed", 42);
+    private final String javaBin = System.getProperty("pingstress.java",
+            Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+    public static void main(String[] args) throws Exception {
+        String serverMode = System.getProperty("pingstress.server");
+        if (serverMode != null) {
+            runServer("virtual".equals(serverMode));
+            return;
+        }
+
+        PingConcurrencyStress stress = new PingConcurrencyStress();
+        List<String> report = new ArrayList<>();
+        for (String mode : System.getProperty("pingstress.modes", "platform,virtual").split(",")) {
+            report.addAll(stress.runMode(mode.trim()));
+        }
+        System.out.printf("%nPing concurrency: drivers=%d, pingIntervalMs=%d, measured %ds after %ds warmup%n",
+                stress.drivers, stress.pingIntervalMs, stress.durationSeconds, stress.warmupSeconds);
+        report.forEach(System.out::println);
+        System.exit(0);
+    }
+
+    private List<String> runMode(String mode) throws Exception {
+        Process server = new ProcessBuilder(javaBin, "-cp", System.getProperty("java.class.path"),
+                "-Dpingstress.server=" + mode, PingConcurrencyStress.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        CompletableFuture<String[]> ready = new CompletableFuture<>();
+        CompletableFuture<String> peakThreads = new CompletableFuture<>();
+        Thread reader = new Thread(() -> readServerOutput(server, ready, peakThreads), "server-output-" + mode);
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            String[] status = ready.get(3, TimeUnit.MINUTES);
+            int port = Integer.parseInt(status[1]);
+            String activeMode = status[2];
+            String serverJava = status[3];
+            if (!mode.equals(activeMode)) {
+                return List.of(String.format("%n[%s] skipped: server runtime is Java %s, which runs %s threads",
+                        mode, serverJava, activeMode));
+            }
+
+            OutputStream control = server.getOutputStream();
+            LatencyRecorder pings = new LatencyRecorder();
+            long[] skipped = drive(port, pings, () -> {
+                // Measure peak threads over the measurement window only
+                control.write("RESET\n".getBytes(StandardCharsets.UTF_8));
+                control.flush();
+            });
+            control.close();
+
+            String peak = peakThreads.get(1, TimeUnit.MINUTES);
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format("%n[%s threads, server Java %s]", mode, serverJava));
+            lines.add(LatencyRecorder.header("endpoint", "req/s"));
+            lines.add(pings.row("POST /v1/drivers/{id}/location", durationSeconds));
+            lines.add(String.format("skipped pings (previous still in flight): %d of %d due, "
+                    + "server peak platform threads: %s", skipped[0], skipped[1], peak));
+            return lines;
+        } finally {
+            server.destroy();
+            if (!server.waitFor(30, TimeUnit.SECONDS)) {
+                server.destroyForcibly();
+            }
+        }
+    }
+
+    /**
+     * Ping from every driver for warmup + duration and record pings sent in the
+     * measurement window.
+     *
+     * @return skipped and due pings in the measurement window
+     */
+    private long[] drive(int port, LatencyRecorder pings, WarmupListener onWarmedUp) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong due = new AtomicLong();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long measureUntil = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+
+        for (int i = 0; i < drivers; i++) {
+            URI uri = URI.create("http://localhost:" + port + "/v1/drivers/stress-driver-" + i + "/location");
+            Random random = new Random(seed * 31 + i);
+            double[] position = {
+                    CENTER_LAT + (random.nextDouble() * 2 - 1) * 0.1,
+                    CENTER_LNG + (random.nextDouble() * 2 - 1) * 0.1 };
+            AtomicBoolean busy = new AtomicBoolean();
+
+            scheduler.scheduleAtFixedRate(() -> {
+                long started = System.nanoTime();
+                boolean measured = started >= measureFrom && started < measureUntil;
+                if (measured) {
+                    due.incrementAndGet();
+                }
+                if (!busy.compareAndSet(false, true)) {
+                    if (measured) {
+                        skipped.incrementAndGet();
+                    }
+                    return;
+                }
+                position[0] += (random.nextDouble() - 0.5) * 0.001;
+                position[1] += (random.nextDouble() - 0.5) * 0.001;
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .timeout(Duration.ofSeconds(30))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(String.format(Locale.ROOT,
+                                "{\"lat\":%.6f,\"lng\":%.6f}", position[0], position[1])))
+                        .build();
+                inFlight.incrementAndGet();
+                client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                    if (measured) {
+                        pings.record(System.nanoTime() - started, response != null ? response.statusCode() : -1);
+                    }
+                    inFlight.decrementAndGet();
+                    busy.set(false);
+                });
+            }, (long) (random.nextDouble() * pingIntervalMs), pingIntervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        TimeUnit.NANOSECONDS.sleep(measureFrom - System.nanoTime());
+        onWarmedUp.warmedUp();
+        TimeUnit.NANOSECONDS.sleep(measureUntil - System.nanoTime());
+        scheduler.shutdownNow();
+
+        long drainUntil = System.currentTimeMillis() + 30_000;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < drainUntil) {
+            Thread.sleep(100);
+        }
+        return new long[] { skipped.get(), due.get() };
+    }
+
+    private static void readServerOutput(Process server, CompletableFuture<String[]> ready,
+            CompletableFuture<String> peakThreads) {
+        try (BufferedReader lines = new BufferedReader(
+                new InputStreamReader(server.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.startsWith("READY ")) {
+                    ready.complete(line.split(" "));
+                } else if (line.startsWith("PEAK_THREADS ")) {
+                    peakThreads.complete(line.substring("PEAK_THREADS ".length()));
+                } else if (line.contains(" ERROR ") || line.startsWith("Exception")) {
+                    System.err.println("[server] " + line);
+                }
+            }
+        } catch (Exception e) {
+            // Process ended
+        }
+        ready.completeExceptionally(new IllegalStateException("Server exited before it was ready"));
+        peakThreads.complete("n/a");
+    }
+
+    /**
+     * Child JVM: boot the server, report the port and active threading mode, then
+     * follow control lines on stdin until it is closed.
+     */
+    private static void runServer(boolean virtual) throws Exception {
+        File db = File.createTempFile("pingstress", ".db");
+        db.deleteOnExit();
+        try (FakeRedisServer redis = new FakeRedisServer()) {
+            ConfigurableApplicationContext context = SpringApplication.run(RideHailingApplication.class,
+                    "--spring.threads.virtual.enabled=" + virtual,
+                    "--spring.datasource.url=jdbc:sqlite:" + db.getAbsolutePath(),
+                    "--spring.data.redis.host=127.0.0.1",
+                    "--spring.data.redis.port=" + redis.getPort(),
+                    "--ridehailing.location-store=redis",
+                    "--server.port=0",
+                    "--server.tomcat.max-connections=20000",
+                    "--server.tomcat.accept-count=2000",
+                    "--server.tomcat.max-keep-alive-requests=-1",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.main.banner-mode=off",
+                    "--logging.level.root=WARN",
+                    "--logging.level.com.ridehailing=WARN");
+            String activeMode = Threading.VIRTUAL.isActive(context.getEnvironment()) ? "virtual" : "platform";
+            System.out.println("READY " + context.getEnvironment().getProperty("local.server.port") + " "
+                    + activeMode + " " + Runtime.version().feature());
+            System.out.flush();
+
+            BufferedReader control = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = control.readLine()) != null) {
+                if ("RESET".equals(line)) {
+                    ManagementFactory.getThreadMXBean().resetPeakThreadCount();
+                }
+            }
+            System.out.println("PEAK_THREADS " + ManagementFactory.getThreadMXBean().getPeakThreadCount());
+            System.out.flush();
+            context.close();
+        }
+        System.exit(0);
+    }
+
+    @FunctionalInterface
+    private interface WarmupListener {
+        void warmedUp() throws Exception;
+    }
+}
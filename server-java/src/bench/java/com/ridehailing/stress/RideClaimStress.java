@@ -0,0 +1,180 @@
+package com.ridehailing.stress;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.RideHailingApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Concurrency stress for ride claiming.
+ *
+ * Boots the app on a random port against a throwaway SQLite file, then for each
+ * round creates a ride and fires all accepts at it at once over HTTP. Every round
+ * must produce exactly one 200, with every other accept answered 409, and the stored
+ * ride must name the winning driver. Prints latency percentiles for winners and losers.
+ *
+ * Run: mvn -Pbench test-compile exec:exec -Dbench.main=com.ridehailing.stress.RideClaimStress
+ * When launching the class directly, -Dstress.accepts (default 300) and -Dstress.rounds
+ * (default 20) size the run.
+ */
+public class RideClaimStress {
+
+    public static void main(String[] args) throws Exception {
+        int accepts = Integer.getInteger("stress.accepts", 300);
+        int rounds = Integer.getInteger("stress.rounds", 20);
+
+        File db = File.createTempFile("ride-claim-stress", ".db");
+        db.deleteOnExit();
+        ConfigurableApplicationContext context = SpringApplication.run(RideHailingApplication.class,
+                "--spring.datasource.url=jdbc:sqlite:" + db.getAbsolutePath(),
+                "--server.port=0",
+                "--server.tomcat.threads.max=" + Math.max(200, accepts),
+                "--ridehailing.location-store=memory",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.ridehailing=WARN");
+
+        int exitCode = 0;
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/v1";
+            exitCode = run(baseUrl, accepts, rounds) ? 0 : 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static boolean run(String baseUrl, int accepts, int rounds) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        ExecutorService pool = Executors.newFixedThreadPool(accepts);
+
+        List<Long> winnerNanos = new ArrayList<>();
+        List<Long> loserNanos = new ArrayList<>();
+        boolean ok = true;
+
+        try {
+            for (int round = 0; round < rounds; round++) {
+                String rideId = createRide(client, mapper, baseUrl, round);
+
+                CountDownLatch ready = new CountDownLatch(accepts);
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Attempt>> futures = new ArrayList<>(accepts);
+                for (int i = 0; i < accepts; i++) {
+                    String driverId = "stress-driver-" + round + "-" + i;
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/drivers/" + driverId + "/accept"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"rideId\":\"" + rideId + "\"}"))
+                            .build();
+                    futures.add(pool.submit(() -> {
+                        ready.countDown();
+                        start.await();
+                        long began = System.nanoTime();
+                        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                        return new Attempt(driverId, response.statusCode(), System.nanoTime() - began);
+                    }));
+                }
+                ready.await();
+                start.countDown();
+
+                String winner = null;
+                int wins = 0;
+                int conflicts = 0;
+                int other = 0;
+                for (Future<Attempt> future : futures) {
+                    Attempt attempt = future.get();
+                    if (attempt.status() == 200) {
+                        wins++;
+                        winner = attempt.driverId();
+                        winnerNanos.add(attempt.nanos());
+                    } else if (attempt.status() == 409) {
+                        conflicts++;
+                        loserNanos.add(attempt.nanos());
+                    } else {
+                        other++;
+                    }
+                }
+
+                String storedDriver = storedDriverId(client, mapper, baseUrl, rideId);
+                boolean roundOk = wins == 1 && conflicts == accepts - 1 && winner.equals(storedDriver);
+                if (!roundOk) {
+                    ok = false;
+                    System.out.printf("FAIL round=%d ride=%s wins=%d conflicts=%d other=%d winner=%s stored=%s%n",
+                            round, rideId, wins, conflicts, other, winner, storedDriver);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        System.out.printf("%nRide claim stress: rounds=%d, accepts/round=%d, result=%s%n",
+                rounds, accepts, ok ? "PASS (exactly one winner per ride)" : "FAIL");
+        report("winner (200)", winnerNanos);
+        report("loser  (409)", loserNanos);
+        return ok;
+    }
+
+    private static String createRide(HttpClient client, ObjectMapper mapper, String baseUrl, int round)
+            throws Exception {
+        String body = mapper.writeValueAsString(Map.of(
+                "riderId", "stress-rider-" + round,
+                "pickupLat", 12.9716, "pickupLng", 77.5946,
+                "destLat", 12.9352, "destLng", 77.6245));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/rides"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200 && response.statusCode() != 201) {
+            throw new IllegalStateException("Ride creation failed: " + response.statusCode() + " " + response.body());
+        }
+        return mapper.readTree(response.body()).get("id").asText();
+    }
+
+    private static String storedDriverId(HttpClient client, ObjectMapper mapper, String baseUrl, String rideId)
+            throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/rides/" + rideId))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString());
+        JsonNode driver = mapper.readTree(response.body()).path("driver");
+        return driver.isMissingNode() || driver.isNull() ? null : driver.path("id").asText();
+    }
+
+    private static void report(String label, List<Long> nanos) {
+        if (nanos.isEmpty()) {
+            System.out.printf("  %s: no samples%n", label);
+            return;
+        }
+        long[] sorted = nanos.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf("  %s: n=%d p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms%n",
+                label, sorted.length,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private record Attempt(String driverId, int status, long nanos) {
+    }
+}
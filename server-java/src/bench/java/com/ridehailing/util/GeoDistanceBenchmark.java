@@ -0,0 +1,90 @@
+package com.ridehailing.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One-to-many distances: scalar getDistance in a loop versus the bulk kernels,
+ * over candidates within 10 km of the origin. The vector variant runs the same
+ * fast-mode call in a fork with the incubator module and flag enabled; it only
+ * differs from bulkFast when built with the vector profile (mvn -Pbench,vector).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoDistanceBenchmark {
+
+    private static final double ORIGIN_LAT = 12.9716;
+    private static final double ORIGIN_LNG = 77.5946;
+
+    @Param({"64", "1024", "16384"})
+    public int candidates;
+
+    private double[] lats;
+    private double[] lngs;
+    private double[] cosLats;
+    private double[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        lats = new double[candidates];
+        lngs = new double[candidates];
+        cosLats = new double[candidates];
+        out = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            lats[i] = ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.18;
+            lngs[i] = ORIGIN_LNG + (random.nextDouble() - 0.5) * 0.18;
+        }
+        GeoUtils.cosLatitudes(lats, cosLats, candidates);
+    }
+
+    @Benchmark
+    public double[] scalarGetDistance() {
+        for (int i = 0; i < candidates; i++) {
+            out[i] = GeoUtils.getDistance(ORIGIN_LAT, ORIGIN_LNG, lats[i], lngs[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] bulkExact() {
+        GeoUtils.distances(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, null, out, candidates);
+        return out;
+    }
+
+    @Benchmark
+    public double[] bulkExactPrecomputedCos() {
+        GeoUtils.distances(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, cosLats, out, candidates);
+        return out;
+    }
+
+    @Benchmark
+    public double[] bulkFast() {
+        GeoUtils.fastDistances(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, out, candidates);
+        return out;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector", "-Dridehailing.geo.vector=true" })
+    public double[] bulkFastVector() {
+        GeoUtils.fastDistances(ORIGIN_LAT, ORIGIN_LNG, lats, lngs, out, candidates);
+        return out;
+    }
+}
@@ -0,0 +1,36 @@
+package com.ridehailing.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-pair Haversine, as called once per ride and once per candidate driver.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeoUtilsBenchmark {
+
+    // Non-final so the JIT cannot fold the call into a constant
+    private double pickupLat = 12.9716;
+    private double pickupLng = 77.5946;
+    private double destLat = 12.9352;
+    private double destLng = 77.6245;
+
+    @Benchmark
+    public double getDistance() {
+        return GeoUtils.getDistance(pickupLat, pickupLng, destLat, destLng);
+    }
+}
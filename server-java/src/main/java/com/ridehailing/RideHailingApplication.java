@@ -2,8 +2,10 @@ package com.ridehailing;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class RideHailingApplication {
     public static void main(String[] args) {
         SpringApplication.run(RideHailingApplication.class, args);
@@ -0,0 +1,85 @@
+package com.ridehailing.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * SQLite connection pools: one write connection and a pool of read-only ones.
+ *
+ * The database runs in WAL mode so readers never block the writer or each other.
+ * Read-only transactions are routed to the read pool: the repositories are annotated
+ * @Transactional(readOnly = true), so their finders open one when called outside a
+ * transaction and join the writer's read-write transaction when called inside one.
+ * Everything else, including schema updates at startup and any statement run with no
+ * transaction, goes to the single write connection, which SqliteWriter's thread uses
+ * for group commits. The routing decision is deferred to the first statement, once
+ * Spring has marked the transaction read-only.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    private static final String DRIVER_CLASS = "org.sqlite.JDBC";
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource sqliteWritePool(@Value("${spring.datasource.url}") String url,
+            @Value("${ridehailing.sqlite.busy-timeout-ms:5000}") int busyTimeoutMs) {
+        HikariDataSource pool = pool("sqlite-writer", url, busyTimeoutMs);
+        pool.setMaximumPoolSize(1);
+        pool.setMinimumIdle(1);
+        pool.addDataSourceProperty("journal_mode", "WAL");
+        // WAL + NORMAL: a commit is durable once the WAL is synced at checkpoint, not per transaction
+        pool.addDataSourceProperty("synchronous", "NORMAL");
+        return pool;
+    }
+
+    @Bean(destroyMethod = "close")
+    public HikariDataSource sqliteReadPool(@Value("${spring.datasource.url}") String url,
+            @Value("${ridehailing.sqlite.busy-timeout-ms:5000}") int busyTimeoutMs,
+            @Value("${ridehailing.sqlite.read-pool-size:8}") int readPoolSize) {
+        HikariDataSource pool = pool("sqlite-reader", url, busyTimeoutMs);
+        pool.setMaximumPoolSize(readPoolSize);
+        pool.setConnectionInitSql("PRAGMA query_only = true");
+        return pool;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("sqliteWritePool") DataSource writePool,
+            @Qualifier("sqliteReadPool") DataSource readPool) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setTargetDataSources(Map.of(Route.WRITE, writePool, Route.READ, readPool));
+        routing.setDefaultTargetDataSource(writePool);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static HikariDataSource pool(String name, String url, int busyTimeoutMs) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName(name);
+        pool.setDriverClassName(DRIVER_CLASS);
+        pool.setJdbcUrl(url);
+        pool.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeoutMs));
+        return pool;
+    }
+
+    private enum Route {
+        READ, WRITE
+    }
+
+    private static class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Route.READ : Route.WRITE;
+        }
+    }
+}
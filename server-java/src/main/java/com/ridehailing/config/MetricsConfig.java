@@ -0,0 +1,53 @@
+package com.ridehailing.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Enables @Timed on service methods (ride lifecycle timers)
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    /**
+     * STOMP channel executor backlog and open WebSocket sessions. The outbound
+     * queue grows when clients read slower than the broker fans out.
+     */
+    @Bean
+    public MeterBinder webSocketMetrics(
+            @Qualifier("clientInboundChannelExecutor") ThreadPoolTaskExecutor inboundExecutor,
+            @Qualifier("clientOutboundChannelExecutor") ThreadPoolTaskExecutor outboundExecutor,
+            @Qualifier("subProtocolWebSocketHandler") WebSocketHandler webSocketHandler) {
+        return registry -> {
+            Gauge.builder("ridehailing.websocket.queue", outboundExecutor,
+                            executor -> executor.getThreadPoolExecutor().getQueue().size())
+                    .description("Messages waiting on the STOMP channel executor")
+                    .tag("channel", "outbound")
+                    .register(registry);
+            Gauge.builder("ridehailing.websocket.queue", inboundExecutor,
+                            executor -> executor.getThreadPoolExecutor().getQueue().size())
+                    .description("Messages waiting on the STOMP channel executor")
+                    .tag("channel", "inbound")
+                    .register(registry);
+            if (webSocketHandler instanceof SubProtocolWebSocketHandler handler) {
+                Gauge.builder("ridehailing.websocket.sessions", handler,
+                                h -> h.getStats().getWebSocketSessions())
+                        .description("Open WebSocket sessions")
+                        .register(registry);
+            }
+        };
+    }
+}
@@ -0,0 +1,45 @@
+package com.ridehailing.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+
+import java.security.Principal;
+
+/**
+ * Binds a STOMP session to the user id sent in the CONNECT frame ("userId" header)
+ * so the server can address a single driver through /user/queue/* destinations.
+ *
+ * Not authentication: the header is taken on trust, exactly like the driver and rider
+ * ids the REST API takes in paths and bodies. Any client can connect as any user,
+ * receive that driver's ride offers and publish locations for it. Once the API gains
+ * real authentication, bind the principal from the authenticated handshake (or a
+ * verified token in the CONNECT frame) here instead, and the user destinations and
+ * /app/location follow without further changes.
+ */
+public class StompUserInterceptor implements ChannelInterceptor {
+
+    public static final String USER_ID_HEADER = "userId";
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor != null && StompCommand.CONNECT.equals(accessor.getCommand())) {
+            String userId = accessor.getFirstNativeHeader(USER_ID_HEADER);
+            if (userId != null && !userId.isBlank()) {
+                accessor.setUser(new StompPrincipal(userId));
+            }
+        }
+        return message;
+    }
+
+    public record StompPrincipal(String name) implements Principal {
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+}
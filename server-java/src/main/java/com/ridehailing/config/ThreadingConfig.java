@@ -0,0 +1,63 @@
+package com.ridehailing.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Execution mode for blocking work.
+ *
+ * With spring.threads.virtual.enabled=true on Java 21+, Spring Boot runs Tomcat
+ * request handling, @Async and @Scheduled tasks on virtual threads, and
+ * WebSocketConfig moves the STOMP inbound and outbound channels onto them too.
+ * On older runtimes the flag is ignored and platform thread pools are used.
+ *
+ * Code on these paths must not block while holding a monitor (that pins the
+ * carrier thread), so shared state is guarded with java.util.concurrent locks
+ * instead of synchronized.
+ */
+@Configuration
+@Slf4j
+public class ThreadingConfig {
+
+    private final Environment environment;
+
+    public ThreadingConfig(Environment environment) {
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void logThreadingMode() {
+        boolean requested = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        if (Threading.VIRTUAL.isActive(environment)) {
+            log.info("Virtual threads enabled for request handling, STOMP channels and async tasks "
+                    + "(diagnose pinning with -Djdk.tracePinnedThreads=short)");
+        } else if (requested) {
+            log.warn("spring.threads.virtual.enabled is set but the runtime is Java {}; virtual threads need "
+                    + "Java 21+, using platform threads", Runtime.version().feature());
+        }
+    }
+
+    static boolean virtualThreadsActive(Environment environment) {
+        return Threading.VIRTUAL.isActive(environment);
+    }
+
+    /**
+     * Channel executor that starts a virtual thread per task, up to the given
+     * number at once. Idle threads are not kept around.
+     */
+    static ThreadPoolTaskExecutor virtualThreadChannelExecutor(String threadNamePrefix, int concurrency) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(new VirtualThreadTaskExecutor(threadNamePrefix).getVirtualThreadFactory());
+        executor.setCorePoolSize(concurrency);
+        executor.setMaxPoolSize(concurrency);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setKeepAliveSeconds(1);
+        executor.setQueueCapacity(Integer.MAX_VALUE);
+        return executor;
+    }
+}
@@ -1,6 +1,10 @@
 package com.ridehailing.config;
 
+import com.ridehailing.wire.LocationSubscriptions;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -10,18 +14,55 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final boolean virtualThreads;
+    private final int channelConcurrency;
+    private final LocationSubscriptions locationSubscriptions;
+
+    public WebSocketConfig(Environment environment,
+            LocationSubscriptions locationSubscriptions,
+            @Value("${ridehailing.threads.channel-concurrency:512}") int channelConcurrency) {
+        this.virtualThreads = ThreadingConfig.virtualThreadsActive(environment);
+        this.locationSubscriptions = locationSubscriptions;
+        this.channelConcurrency = channelConcurrency;
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable a simple in-memory message broker
-        // Clients subscribe to /topic/* destinations
-        config.enableSimpleBroker("/topic");
+        // Clients subscribe to /topic/* destinations; /queue/* carries per-user messages
+        config.enableSimpleBroker("/topic", "/queue");
+
+        // Per-user destinations (/user/queue/...) resolve to the session's principal
+        config.setUserDestinationPrefix("/user");
 
         // Messages from clients with /app prefix are routed to @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Location subscriptions may ask for binary frames with a "format: binary" header
+        registration.interceptors(new StompUserInterceptor(), locationSubscriptions);
+        if (virtualThreads) {
+            registration.taskExecutor(ThreadingConfig.virtualThreadChannelExecutor(
+                    "clientInboundChannel-", channelConcurrency));
+        }
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        // Sends to slow clients block; on virtual threads they park instead of holding a pool thread
+        if (virtualThreads) {
+            registration.taskExecutor(ThreadingConfig.virtualThreadChannelExecutor(
+                    "clientOutboundChannel-", channelConcurrency));
+        }
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // Handle each session's frames in arrival order (location pings on /app/location)
+        registry.setPreserveReceiveOrder(true);
+
         // Native WebSocket endpoint (for modern browsers)
         registry.addEndpoint("/ws")
                 .setAllowedOriginPatterns("*");
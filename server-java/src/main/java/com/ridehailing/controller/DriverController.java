@@ -1,17 +1,24 @@
 package com.ridehailing.controller;
 
 import com.ridehailing.dto.AcceptRideRequest;
+import com.ridehailing.dto.LocationBatchRequest;
+import com.ridehailing.dto.LocationBatchResult;
+import com.ridehailing.dto.NearbyDriver;
 import com.ridehailing.dto.UpdateLocationRequest;
 import com.ridehailing.model.Driver;
 import com.ridehailing.model.Ride;
+import com.ridehailing.readmodel.DriverProfileView;
 import com.ridehailing.service.DriverService;
 import com.ridehailing.service.PricingService;
 import com.ridehailing.service.RideService;
+import com.ridehailing.service.SocketService;
+import com.ridehailing.wire.DriverHandles;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -22,6 +29,14 @@ public class DriverController {
     private final DriverService driverService;
     private final RideService rideService;
     private final PricingService pricingService;
+    private final SocketService socketService;
+    private final DriverHandles driverHandles;
+
+    private static final int MAX_NEARBY_RESULTS = 100;
+    private static final int MAX_LIVE_RESULTS = 500;
+    private static final double MAX_NEARBY_RADIUS_KM = 50.0;
+    private static final int MAX_VIEWPORT_CELLS = 100;
+    private static final int MAX_HANDLE_LOOKUPS = 1000;
 
     /**
      * Update driver location
@@ -31,12 +46,87 @@ public class DriverController {
     public ResponseEntity<Map<String, Object>> updateLocation(
             @PathVariable String id,
             @Valid @RequestBody UpdateLocationRequest request) {
-        Driver driver = driverService.updateLocation(id, request.getLat(), request.getLng());
+        Driver driver = driverService.updateLocation(id, request.getLat(), request.getLng(), request.getTier());
         return ResponseEntity.ok(Map.of(
                 "success", true,
                 "driver", driver));
     }
 
+    /**
+     * Bulk location ingest for fleet gateways
+     * POST /v1/drivers/locations:batch
+     */
+    @PostMapping("/drivers/locations:batch")
+    public ResponseEntity<LocationBatchResult> updateLocations(@Valid @RequestBody LocationBatchRequest request) {
+        return ResponseEntity.ok(driverService.updateLocations(request.getPings()));
+    }
+
+    /**
+     * Find the nearest online drivers around a point
+     * GET /v1/drivers/nearby?lat&lng&k&radius&tier
+     */
+    @GetMapping("/drivers/nearby")
+    public ResponseEntity<List<NearbyDriver>> nearbyDrivers(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "5") double radius,
+            @RequestParam(required = false) String tier) {
+        int limit = Math.max(1, Math.min(k, MAX_NEARBY_RESULTS));
+        double radiusKm = Math.max(0.0, Math.min(radius, MAX_NEARBY_RADIUS_KM));
+        return ResponseEntity.ok(driverService.findNearbyDrivers(lat, lng, limit, radiusKm, tier));
+    }
+
+    /**
+     * Live driver map around a point from the shared location store
+     * GET /v1/drivers/locations?lat&lng&radius&limit
+     */
+    @GetMapping("/drivers/locations")
+    public ResponseEntity<List<NearbyDriver>> liveDrivers(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "5") double radius,
+            @RequestParam(defaultValue = "100") int limit) {
+        int cappedLimit = Math.max(1, Math.min(limit, MAX_LIVE_RESULTS));
+        double radiusKm = Math.max(0.0, Math.min(radius, MAX_NEARBY_RADIUS_KM));
+        return ResponseEntity.ok(driverService.findLiveDrivers(lat, lng, radiusKm, cappedLimit));
+    }
+
+    /**
+     * Cell topics covering a map viewport
+     * GET /v1/drivers/cells?minLat&minLng&maxLat&maxLng
+     * Clients subscribe to /topic/drivers/cell/{cellId} for each returned cell.
+     */
+    @GetMapping("/drivers/cells")
+    public ResponseEntity<Map<String, Object>> viewportCells(
+            @RequestParam double minLat,
+            @RequestParam double minLng,
+            @RequestParam double maxLat,
+            @RequestParam double maxLng) {
+        List<String> cells = socketService.cellsCovering(minLat, minLng, maxLat, maxLng, MAX_VIEWPORT_CELLS);
+        if (cells == null) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "error", "Viewport too large",
+                    "maxCells", MAX_VIEWPORT_CELLS));
+        }
+        return ResponseEntity.ok(Map.of(
+                "cellSizeDeg", socketService.getCellSizeDeg(),
+                "topicPrefix", "/topic/drivers/cell/",
+                "cells", cells));
+    }
+
+    /**
+     * Driver ids behind the handles used in binary location frames
+     * GET /v1/drivers/handles?h=1,2,3
+     */
+    @GetMapping("/drivers/handles")
+    public ResponseEntity<Map<Integer, String>> resolveHandles(@RequestParam("h") List<Integer> handles) {
+        if (handles.size() > MAX_HANDLE_LOOKUPS) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(driverHandles.resolve(handles));
+    }
+
     /**
      * Accept a ride request
      * POST /v1/drivers/{id}/accept
@@ -49,6 +139,17 @@ public class DriverController {
         return ResponseEntity.ok(ride);
     }
 
+    /**
+     * Get a driver's profile
+     * GET /v1/drivers/{id}
+     */
+    @GetMapping("/drivers/{id}")
+    public ResponseEntity<DriverProfileView> getDriver(@PathVariable String id) {
+        return driverService.getProfile(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     /**
      * Go online
      * POST /v1/drivers/{id}/online
@@ -56,6 +157,7 @@ public class DriverController {
     @PostMapping("/drivers/{id}/online")
     public ResponseEntity<Map<String, Object>> goOnline(@PathVariable String id) {
         pricingService.updateDemandMetrics("increment", "driver");
+        driverService.trackStatus(id, "online");
         return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Driver is now online"));
@@ -68,6 +170,7 @@ public class DriverController {
     @PostMapping("/drivers/{id}/offline")
     public ResponseEntity<Map<String, Object>> goOffline(@PathVariable String id) {
         pricingService.updateDemandMetrics("decrement", "driver");
+        driverService.trackStatus(id, "offline");
         return ResponseEntity.ok(Map.of(
                 "success", true,
                 "message", "Driver is now offline"));
@@ -0,0 +1,152 @@
+package com.ridehailing.controller;
+
+import com.ridehailing.dto.LocationAck;
+import com.ridehailing.dto.LocationUpdateMessage;
+import com.ridehailing.service.DriverService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Driver location ingest over the driver's STOMP session.
+ *
+ * Drivers publish LocationUpdateMessage frames to /app/location instead of POSTing
+ * to /v1/drivers/{id}/location. The driver is the session's principal (bound from
+ * the CONNECT frame by StompUserInterceptor), so the payload carries no driver id.
+ * That principal is the client's unverified claim, so this endpoint is no more
+ * trusted than the HTTP one; see StompUserInterceptor.
+ * Per session, pings with a seq at or below the last applied one are dropped and
+ * pings arriving sooner than min-interval-ms after the last applied one are
+ * throttled. Accepted pings go through DriverService.updateLocation, the same path
+ * as the HTTP endpoint. A ping with ack=true gets a LocationAck on
+ * /user/queue/location_ack for that session only.
+ */
+@Controller
+@Slf4j
+public class DriverLocationSocketController {
+
+    private final DriverService driverService;
+    private final long minIntervalMs;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+
+    private final Counter accepted;
+    private final Counter stale;
+    private final Counter throttled;
+    private final Counter invalid;
+    private final Counter unauthenticated;
+
+    public DriverLocationSocketController(DriverService driverService,
+            MeterRegistry meterRegistry,
+            @Value("${ridehailing.socket.location.min-interval-ms:500}") long minIntervalMs) {
+        this.driverService = driverService;
+        this.minIntervalMs = minIntervalMs;
+        this.accepted = pingCounter(meterRegistry, LocationAck.STATUS_ACCEPTED);
+        this.stale = pingCounter(meterRegistry, LocationAck.STATUS_STALE);
+        this.throttled = pingCounter(meterRegistry, LocationAck.STATUS_THROTTLED);
+        this.invalid = pingCounter(meterRegistry, LocationAck.STATUS_INVALID);
+        this.unauthenticated = pingCounter(meterRegistry, LocationAck.STATUS_UNAUTHENTICATED);
+    }
+
+    private static Counter pingCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ridehailing.location.socket.pings")
+                .description("Location pings received over STOMP by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Location ping from a connected driver
+     * SEND /app/location
+     */
+    @MessageMapping("/location")
+    @SendToUser(destinations = "/queue/location_ack", broadcast = false)
+    public LocationAck updateLocation(@Payload LocationUpdateMessage message, SimpMessageHeaderAccessor headers) {
+        Principal principal = headers.getUser();
+        if (principal == null) {
+            unauthenticated.increment();
+            return reply(message, LocationAck.STATUS_UNAUTHENTICATED, null);
+        }
+        if (!isValid(message)) {
+            invalid.increment();
+            return reply(message, LocationAck.STATUS_INVALID, null);
+        }
+
+        long now = System.currentTimeMillis();
+        String[] outcome = new String[1];
+        SessionState state = sessions.compute(headers.getSessionId(), (id, current) -> {
+            if (current != null && message.getSeq() != null && message.getSeq() <= current.lastSeq()) {
+                outcome[0] = LocationAck.STATUS_STALE;
+                return current;
+            }
+            if (current != null && now < current.lastAppliedAt() + minIntervalMs) {
+                outcome[0] = LocationAck.STATUS_THROTTLED;
+                return current;
+            }
+            outcome[0] = LocationAck.STATUS_ACCEPTED;
+            long seq = message.getSeq() != null ? message.getSeq() : current != null ? current.lastSeq() : 0L;
+            return new SessionState(seq, now);
+        });
+        Long nextAllowedAt = state.lastAppliedAt() + minIntervalMs;
+
+        switch (outcome[0]) {
+            case LocationAck.STATUS_STALE -> {
+                stale.increment();
+                return reply(message, LocationAck.STATUS_STALE, nextAllowedAt);
+            }
+            case LocationAck.STATUS_THROTTLED -> {
+                throttled.increment();
+                return reply(message, LocationAck.STATUS_THROTTLED, nextAllowedAt);
+            }
+            default -> {
+                driverService.updateLocation(principal.getName(), message.getLat(), message.getLng(),
+                        message.getTier());
+                accepted.increment();
+                return reply(message, LocationAck.STATUS_ACCEPTED, nextAllowedAt);
+            }
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        sessions.remove(event.getSessionId());
+    }
+
+    /**
+     * @return null (no reply frame) unless the ping asked for an ack
+     */
+    private static LocationAck reply(LocationUpdateMessage message, String status, Long nextAllowedAt) {
+        if (message == null || !message.isAck()) {
+            return null;
+        }
+        return LocationAck.builder()
+                .seq(message.getSeq())
+                .status(status)
+                .nextAllowedAt(nextAllowedAt)
+                .build();
+    }
+
+    private static boolean isValid(LocationUpdateMessage message) {
+        return message != null
+                && message.getLat() != null && message.getLat() >= -90.0 && message.getLat() <= 90.0
+                && message.getLng() != null && message.getLng() >= -180.0 && message.getLng() <= 180.0;
+    }
+
+    /**
+     * Last applied ping of one STOMP session
+     */
+    private record SessionState(long lastSeq, long lastAppliedAt) {
+    }
+}
@@ -1,7 +1,10 @@
 package com.ridehailing.controller;
 
 import com.ridehailing.dto.ProcessPaymentRequest;
+import com.ridehailing.events.BusinessEvent;
+import com.ridehailing.events.BusinessEventPublisher;
 import com.ridehailing.service.ReceiptService;
+import com.ridehailing.service.RideCompletionWorker;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +21,8 @@ import java.util.UUID;
 public class PaymentController {
 
     private final ReceiptService receiptService;
+    private final RideCompletionWorker rideCompletionWorker;
+    private final BusinessEventPublisher eventPublisher;
 
     /**
      * Process payment for a ride
@@ -31,13 +36,20 @@ public class PaymentController {
         log.info("Payment processed: rideId={}, amount={}, transactionId={}",
                 request.getRideId(), request.getAmount(), transactionId);
 
-        // Update receipt with payment status
+        // Update receipt with payment status, generating it first if the ride's completion is still queued
         try {
+            rideCompletionWorker.ensureCompleted(request.getRideId());
             receiptService.updateReceiptPaymentStatus(request.getRideId(), "completed", transactionId);
         } catch (Exception e) {
             log.warn("Receipt not found for payment update: rideId={}", request.getRideId());
         }
 
+        eventPublisher.publish(BusinessEvent.PAYMENT_PROCESSED, Map.of(
+                "rideId", request.getRideId(),
+                "amount", request.getAmount(),
+                "status", "completed",
+                "transactionId", transactionId));
+
         return ResponseEntity.ok(Map.of(
                 "success", true,
                 "transactionId", transactionId,
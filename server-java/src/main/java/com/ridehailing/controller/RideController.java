@@ -1,17 +1,23 @@
 package com.ridehailing.controller;
 
 import com.ridehailing.dto.CreateRideRequest;
-import com.ridehailing.model.Receipt;
+import com.ridehailing.dto.FareEstimate;
+import com.ridehailing.dto.FareEstimateRequest;
 import com.ridehailing.model.Ride;
+import com.ridehailing.readmodel.ReceiptView;
+import com.ridehailing.service.PricingService;
 import com.ridehailing.service.RatingService;
 import com.ridehailing.service.ReceiptService;
+import com.ridehailing.service.RideCompletionWorker;
 import com.ridehailing.service.RideService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/v1")
@@ -21,6 +27,8 @@ public class RideController {
     private final RideService rideService;
     private final ReceiptService receiptService;
     private final RatingService ratingService;
+    private final PricingService pricingService;
+    private final RideCompletionWorker rideCompletionWorker;
 
     /**
      * Create a new ride request
@@ -32,14 +40,29 @@ public class RideController {
         return ResponseEntity.ok(ride);
     }
 
+    /**
+     * Price a trip for every tier without booking it
+     * POST /v1/rides/estimate
+     */
+    @PostMapping("/rides/estimate")
+    public ResponseEntity<FareEstimate> estimateFares(@Valid @RequestBody FareEstimateRequest request) {
+        return ResponseEntity.ok(pricingService.estimateFares(request));
+    }
+
     /**
      * Get ride by ID
      * GET /v1/rides/{id}
+     *
+     * Writes the ride's pre-serialized view from the active ride cache, with its
+     * version as ETag; a matching If-None-Match gets 304 Not Modified.
      */
     @GetMapping("/rides/{id}")
-    public ResponseEntity<Ride> getRide(@PathVariable String id) {
-        return rideService.getRideById(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<byte[]> getRide(@PathVariable String id) {
+        return rideService.getCachedRide(id)
+                .map(cached -> ResponseEntity.ok()
+                        .eTag(cached.etag())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .body(cached.json()))
                 .orElse(ResponseEntity.notFound().build());
     }
 
@@ -100,10 +123,17 @@ public class RideController {
     /**
      * Get receipt for a ride
      * GET /v1/rides/{id}/receipt
+     *
+     * A ride whose completion is still queued has its receipt generated on the spot.
      */
     @GetMapping("/rides/{id}/receipt")
-    public ResponseEntity<Receipt> getReceipt(@PathVariable String id) {
-        return receiptService.getReceipt(id)
+    public ResponseEntity<ReceiptView> getReceipt(@PathVariable String id) {
+        Optional<ReceiptView> receipt = receiptService.getReceipt(id);
+        if (receipt.isEmpty()) {
+            rideCompletionWorker.ensureCompleted(id);
+            receipt = receiptService.getReceipt(id);
+        }
+        return receipt
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
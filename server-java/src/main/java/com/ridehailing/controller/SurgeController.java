@@ -0,0 +1,34 @@
+package com.ridehailing.controller;
+
+import com.ridehailing.pricing.SurgeSnapshot;
+import com.ridehailing.service.PricingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1")
+@RequiredArgsConstructor
+public class SurgeController {
+
+    private final PricingService pricingService;
+
+    /**
+     * Current surge factors per tier for the zone around a point
+     * GET /v1/surge?lat=..&lng=..
+     */
+    @GetMapping("/surge")
+    public ResponseEntity<Map<String, Object>> getSurge(@RequestParam double lat, @RequestParam double lng) {
+        SurgeSnapshot snapshot = pricingService.getSurgeSnapshot();
+        return ResponseEntity.ok(Map.of(
+                "zoneId", snapshot.zoneId(lat, lng),
+                "surge", snapshot.factorsByTier(lat, lng),
+                "computedAt", snapshot.getComputedAt(),
+                "snapshotAgeMs", snapshot.ageMillis()));
+    }
+}
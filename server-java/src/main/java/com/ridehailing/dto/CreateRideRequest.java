@@ -24,4 +24,7 @@ public class CreateRideRequest {
     private String tier = "economy";
 
     private String paymentMethod = "card";
+
+    // Optional quote from POST /v1/rides/estimate; locks its price and distance
+    private String quoteId;
 }
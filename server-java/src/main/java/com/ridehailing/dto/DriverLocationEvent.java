@@ -0,0 +1,44 @@
+package com.ridehailing.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Driver update published on a per-cell topic (/topic/drivers/cell/{cellId})
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverLocationEvent {
+    public static final String TYPE_LOCATION = "location";
+    public static final String TYPE_LEFT = "left";
+
+    private String type; // location, left
+
+    private String driverId;
+
+    private Double lat;
+
+    private Double lng;
+
+    private String status;
+
+    private String tier;
+
+    // Degrees clockwise from north and metres per second, when the server sends velocity
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double heading;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Double speedMps;
+
+    // Cell the message was published to
+    private String cellId;
+
+    // For "left" events: the cell the driver moved to (null when going offline)
+    private String toCellId;
+}
@@ -0,0 +1,25 @@
+package com.ridehailing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FareEstimate {
+    // Pass as CreateRideRequest.quoteId to book at these prices
+    private String quoteId;
+
+    private Double distance;
+
+    // Fare per tier: economy, premium, luxury
+    private Map<String, FareBreakdown> fares;
+
+    // Epoch millis after which the quote can no longer be booked
+    private Long expiresAt;
+}
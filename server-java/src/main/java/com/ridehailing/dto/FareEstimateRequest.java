@@ -0,0 +1,19 @@
+package com.ridehailing.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class FareEstimateRequest {
+    @NotNull
+    private Double pickupLat;
+
+    @NotNull
+    private Double pickupLng;
+
+    @NotNull
+    private Double destLat;
+
+    @NotNull
+    private Double destLng;
+}
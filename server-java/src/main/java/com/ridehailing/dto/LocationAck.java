@@ -0,0 +1,28 @@
+package com.ridehailing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reply to a LocationUpdateMessage that asked for one
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationAck {
+    public static final String STATUS_ACCEPTED = "accepted";
+    public static final String STATUS_STALE = "stale";
+    public static final String STATUS_THROTTLED = "throttled";
+    public static final String STATUS_INVALID = "invalid";
+    public static final String STATUS_UNAUTHENTICATED = "unauthenticated";
+
+    private Long seq;
+
+    private String status; // accepted, stale, throttled, invalid, unauthenticated
+
+    // Earliest time (epoch millis) the session may send its next ping
+    private Long nextAllowedAt;
+}
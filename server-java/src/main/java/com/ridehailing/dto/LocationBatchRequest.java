@@ -0,0 +1,16 @@
+package com.ridehailing.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LocationBatchRequest {
+    // Individual pings are checked by the ingest path so one bad record
+    // does not reject the whole batch
+    @NotNull
+    @Size(max = 10000)
+    private List<LocationPing> pings;
+}
@@ -0,0 +1,24 @@
+package com.ridehailing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationBatchResult {
+    // Pings applied (one per driver at most)
+    private int accepted;
+
+    // Invalid pings (missing driver id, coordinates out of range)
+    private int dropped;
+
+    // Valid pings superseded by a newer one for the same driver in this batch
+    private int coalesced;
+
+    // Pings older than the latest position already applied for the driver
+    private int stale;
+}
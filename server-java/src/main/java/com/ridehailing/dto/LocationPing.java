@@ -0,0 +1,22 @@
+package com.ridehailing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationPing {
+    private String driverId;
+
+    private Double lat;
+
+    private Double lng;
+
+    // Epoch millis when the ping was taken (device clock). Pings without it are applied
+    // as received and are not checked for ordering against timestamped ones
+    private Long ts;
+}
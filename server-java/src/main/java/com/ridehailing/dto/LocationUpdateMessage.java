@@ -0,0 +1,28 @@
+package com.ridehailing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Location ping a driver publishes on /app/location over its STOMP session
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationUpdateMessage {
+    private Double lat;
+
+    private Double lng;
+
+    // Optional - keeps the driver's current tier when omitted
+    private String tier;
+
+    // Increasing per session; pings at or below the last applied seq are dropped as stale
+    private Long seq;
+
+    // Request a LocationAck on /user/queue/location_ack
+    private boolean ack;
+}
@@ -0,0 +1,19 @@
+package com.ridehailing.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyDriver {
+    private String driverId;
+    private Double lat;
+    private Double lng;
+    private String status;
+    private String tier;
+    private Double distanceKm;
+}
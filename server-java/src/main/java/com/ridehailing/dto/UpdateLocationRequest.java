@@ -10,4 +10,7 @@ public class UpdateLocationRequest {
 
     @NotNull
     private Double lng;
+
+    // Optional - keeps the driver's current tier when omitted
+    private String tier;
 }
@@ -0,0 +1,15 @@
+package com.ridehailing.events;
+
+import java.util.Map;
+
+/**
+ * A named business event with flat attributes, in the shape the dashboards query
+ * (e.g. {@code SELECT count(*) FROM RideCreated FACET tier}).
+ */
+public record BusinessEvent(String eventType, long timestamp, Map<String, Object> attributes) {
+
+    public static final String RIDE_CREATED = "RideCreated";
+    public static final String PAYMENT_PROCESSED = "PaymentProcessed";
+    public static final String SURGE_PRICING_CALCULATED = "SurgePricingCalculated";
+    public static final String TRIP_EVENT = "TripEvent";
+}
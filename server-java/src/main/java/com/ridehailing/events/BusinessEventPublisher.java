@@ -0,0 +1,111 @@
+package com.ridehailing.events;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publishes business events off the request path.
+ *
+ * Callers only enqueue into a bounded queue; a scheduled drain hands batches to the
+ * configured sink. When the queue is full new events are dropped and counted rather
+ * than slowing down ride handling.
+ */
+@Component
+@Slf4j
+public class BusinessEventPublisher {
+
+    private final BusinessEventSink sink;
+    private final boolean enabled;
+    private final int batchSize;
+
+    private final BlockingQueue<BusinessEvent> queue;
+    private final MeterRegistry meterRegistry;
+    private final Counter dropped;
+    private final Counter sinkErrors;
+    private final ConcurrentHashMap<String, Counter> published = new ConcurrentHashMap<>();
+
+    // A lock rather than a monitor because sink writes block on I/O
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    public BusinessEventPublisher(BusinessEventSink sink,
+            MeterRegistry meterRegistry,
+            @Value("${ridehailing.events.queue-capacity:10000}") int queueCapacity,
+            @Value("${ridehailing.events.batch-size:500}") int batchSize) {
+        this.sink = sink;
+        this.enabled = !(sink instanceof NoopBusinessEventSink);
+        this.batchSize = batchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.meterRegistry = meterRegistry;
+
+        this.dropped = Counter.builder("ridehailing.events.dropped")
+                .description("Business events dropped because the queue was full")
+                .register(meterRegistry);
+        this.sinkErrors = Counter.builder("ridehailing.events.sink.errors")
+                .description("Batches the event sink failed to write")
+                .register(meterRegistry);
+        Gauge.builder("ridehailing.events.pending", queue, BlockingQueue::size)
+                .description("Business events waiting for the sink")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether events reach a real sink. Callers can skip building attributes that
+     * cost more than a map allocation when this is false.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void publish(String eventType, Map<String, Object> attributes) {
+        published.computeIfAbsent(eventType, type -> Counter.builder("ridehailing.events.published")
+                .description("Business events published by type")
+                .tag("type", type)
+                .register(meterRegistry)).increment();
+        if (!enabled) {
+            return;
+        }
+        if (!queue.offer(new BusinessEvent(eventType, System.currentTimeMillis(), attributes))) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${ridehailing.events.flush-interval-ms:1000}")
+    public void drain() {
+        drainLock.lock();
+        try {
+            List<BusinessEvent> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+            while (queue.drainTo(batch, batchSize) > 0) {
+                try {
+                    sink.write(batch);
+                } catch (Exception e) {
+                    // Events are diagnostics, not records of truth: drop the batch
+                    sinkErrors.increment();
+                    log.warn("Business event sink failed, dropping batch: size={}, error={}",
+                            batch.size(), e.getMessage());
+                }
+                batch.clear();
+            }
+        } finally {
+            drainLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        drain();
+    }
+}
@@ -0,0 +1,14 @@
+package com.ridehailing.events;
+
+import java.util.List;
+
+/**
+ * Destination for business events. Selected with ridehailing.events.sink.
+ */
+public interface BusinessEventSink {
+
+    /**
+     * Deliver a batch of events in publication order
+     */
+    void write(List<BusinessEvent> events) throws Exception;
+}
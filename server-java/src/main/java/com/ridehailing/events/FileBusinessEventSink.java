@@ -0,0 +1,53 @@
+package com.ridehailing.events;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends events to a local file as JSON lines, one object per event with the
+ * event name ("event") and timestamp next to the attributes. Meant for local
+ * testing of the dashboards' event queries.
+ */
+@Component
+@ConditionalOnProperty(name = "ridehailing.events.sink", havingValue = "file")
+@Slf4j
+public class FileBusinessEventSink implements BusinessEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileBusinessEventSink(ObjectMapper objectMapper,
+            @Value("${ridehailing.events.file:business-events.jsonl}") String path) {
+        this.objectMapper = objectMapper;
+        this.path = Path.of(path);
+        log.info("Business events will be appended to {}", this.path.toAbsolutePath());
+    }
+
+    @Override
+    public void write(List<BusinessEvent> events) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (BusinessEvent event : events) {
+                Map<String, Object> line = new LinkedHashMap<>();
+                line.put("event", event.eventType());
+                line.put("timestamp", event.timestamp());
+                line.putAll(event.attributes());
+                writer.write(objectMapper.writeValueAsString(line));
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.ridehailing.events;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Default sink: events are counted in metrics but not delivered anywhere
+ */
+@Component
+@ConditionalOnProperty(name = "ridehailing.events.sink", havingValue = "none", matchIfMissing = true)
+public class NoopBusinessEventSink implements BusinessEventSink {
+
+    @Override
+    public void write(List<BusinessEvent> events) {
+    }
+}
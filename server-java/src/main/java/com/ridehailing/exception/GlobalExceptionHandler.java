@@ -32,6 +32,33 @@ public class GlobalExceptionHandler {
                 "details", errors));
     }
 
+    /**
+     * Handle lost ride claims
+     */
+    @ExceptionHandler(RideNotAvailableException.class)
+    public ResponseEntity<Map<String, Object>> handleRideNotAvailable(RideNotAvailableException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", ex.getMessage()));
+    }
+
+    /**
+     * Handle ride status changes the ride's current status does not allow
+     */
+    @ExceptionHandler(IllegalRideTransitionException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalRideTransition(IllegalRideTransitionException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", ex.getMessage()));
+    }
+
+    /**
+     * Handle unusable fare quotes
+     */
+    @ExceptionHandler(InvalidQuoteException.class)
+    public ResponseEntity<Map<String, Object>> handleInvalidQuote(InvalidQuoteException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", ex.getMessage()));
+    }
+
     /**
      * Handle runtime exceptions
      */
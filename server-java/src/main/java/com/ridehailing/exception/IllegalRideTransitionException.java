@@ -0,0 +1,15 @@
+package com.ridehailing.exception;
+
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.model.RideTransition;
+
+/**
+ * Thrown when a ride is not in a state the requested transition can start from.
+ * Mapped to 409 Conflict.
+ */
+public class IllegalRideTransitionException extends RuntimeException {
+
+    public IllegalRideTransitionException(String rideId, RideTransition transition, RideStatus current) {
+        super("Cannot " + transition.name().toLowerCase() + " ride " + rideId + " in status " + current.value());
+    }
+}
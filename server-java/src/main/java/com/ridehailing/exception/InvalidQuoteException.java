@@ -0,0 +1,12 @@
+package com.ridehailing.exception;
+
+/**
+ * Thrown when a ride is booked with a quote that is unknown, expired or does not
+ * match the requested trip. Mapped to 409 Conflict so the client re-estimates.
+ */
+public class InvalidQuoteException extends RuntimeException {
+
+    public InvalidQuoteException(String message) {
+        super(message);
+    }
+}
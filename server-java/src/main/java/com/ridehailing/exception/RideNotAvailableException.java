@@ -0,0 +1,12 @@
+package com.ridehailing.exception;
+
+/**
+ * Thrown when a driver tries to accept a ride that was already claimed or is no
+ * longer in the requested state. Mapped to 409 Conflict.
+ */
+public class RideNotAvailableException extends RuntimeException {
+
+    public RideNotAvailableException(String rideId) {
+        super("Ride not available: " + rideId);
+    }
+}
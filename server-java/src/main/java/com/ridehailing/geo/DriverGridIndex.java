@@ -0,0 +1,282 @@
+package com.ridehailing.geo;
+
+import com.ridehailing.dto.NearbyDriver;
+import com.ridehailing.util.GeoUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In-process spatial index of driver positions.
+ *
+ * Every known driver is tracked with its last position, tier and status, but only
+ * "online" drivers are linked into grid cells, so nearest-driver queries never see
+ * busy or offline drivers. Queries expand ring by ring around the pickup cell and
+ * stop as soon as no unvisited cell can hold a closer driver.
+ */
+@Component
+@Slf4j
+public class DriverGridIndex {
+
+    public static final String STATUS_ONLINE = "online";
+    public static final String DEFAULT_TIER = "economy";
+
+    // Safety net for queries near the poles where cells become very narrow
+    private static final int MAX_RINGS = 500;
+
+    private final GeoGrid grid;
+    private final long staleAfterMillis;
+
+    private final ConcurrentHashMap<String, IndexedDriver> drivers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<String, IndexedDriver>> cells = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    public DriverGridIndex(@Value("${ridehailing.geo.cell-size-deg:0.01}") double cellSizeDeg,
+            @Value("${ridehailing.geo.stale-after-seconds:300}") long staleAfterSeconds) {
+        this.grid = new GeoGrid(cellSizeDeg);
+        this.staleAfterMillis = staleAfterSeconds * 1000L;
+    }
+
+    public GeoGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Register a listener for changes to the set of online drivers and for evictions
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Record a location ping. New drivers start "online"; known drivers keep their
+     * current status. A null tier keeps the driver's current tier.
+     *
+     * @return the previous entry for this driver, or null if it was not indexed
+     */
+    public IndexedDriver updateLocation(String driverId, double lat, double lng, String tier) {
+        long cellKey = grid.cellOf(lat, lng);
+        long now = System.currentTimeMillis();
+        IndexedDriver[] previous = new IndexedDriver[1];
+
+        drivers.compute(driverId, (id, old) -> {
+            previous[0] = old;
+            IndexedDriver next = new IndexedDriver(
+                    id, lat, lng,
+                    tier != null ? tier : old != null ? old.tier() : DEFAULT_TIER,
+                    old != null ? old.status() : STATUS_ONLINE,
+                    cellKey, now);
+            relink(old, next);
+            return next;
+        });
+
+        return previous[0];
+    }
+
+    /**
+     * Record a status change. Drivers without a known position are left unindexed
+     * until their first location ping.
+     */
+    public void updateStatus(String driverId, String status) {
+        drivers.computeIfPresent(driverId, (id, old) -> {
+            if (status.equals(old.status())) {
+                return old;
+            }
+            IndexedDriver next = new IndexedDriver(id, old.lat(), old.lng(), old.tier(), status,
+                    old.cellKey(), old.updatedAt());
+            relink(old, next);
+            return next;
+        });
+    }
+
+    public void remove(String driverId) {
+        drivers.computeIfPresent(driverId, (id, old) -> {
+            relink(old, null);
+            return null;
+        });
+    }
+
+    public IndexedDriver get(String driverId) {
+        return drivers.get(driverId);
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    /**
+     * Find the k nearest online drivers within radiusKm of the given point,
+     * optionally restricted to a tier. Results are ordered by distance.
+     */
+    public List<NearbyDriver> findNearest(double lat, double lng, int k, double radiusKm, String tier) {
+        if (k <= 0) {
+            return List.of();
+        }
+
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k,
+                Comparator.comparingDouble(Candidate::distanceKm).reversed());
+        int centerRow = grid.row(lat);
+        int centerCol = grid.col(lng);
+        long freshSince = System.currentTimeMillis() - staleAfterMillis;
+
+        for (int ring = 0; ring <= MAX_RINGS; ring++) {
+            if (ring == 0) {
+                scanCell(GeoGrid.key(centerRow, centerCol), lat, lng, k, radiusKm, tier, freshSince, best);
+            } else {
+                for (int col = centerCol - ring; col <= centerCol + ring; col++) {
+                    scanCell(GeoGrid.key(centerRow - ring, col), lat, lng, k, radiusKm, tier, freshSince, best);
+                    scanCell(GeoGrid.key(centerRow + ring, col), lat, lng, k, radiusKm, tier, freshSince, best);
+                }
+                for (int row = centerRow - ring + 1; row <= centerRow + ring - 1; row++) {
+                    scanCell(GeoGrid.key(row, centerCol - ring), lat, lng, k, radiusKm, tier, freshSince, best);
+                    scanCell(GeoGrid.key(row, centerCol + ring), lat, lng, k, radiusKm, tier, freshSince, best);
+                }
+            }
+
+            double beyond = grid.minDistanceBeyondRing(lat, ring);
+            if (beyond > radiusKm) {
+                break;
+            }
+            if (best.size() == k && best.peek().distanceKm() <= beyond) {
+                break;
+            }
+        }
+
+        List<Candidate> ordered = new ArrayList<>(best);
+        ordered.sort(Comparator.comparingDouble(Candidate::distanceKm));
+
+        List<NearbyDriver> result = new ArrayList<>(ordered.size());
+        for (Candidate candidate : ordered) {
+            IndexedDriver driver = candidate.driver();
+            result.add(NearbyDriver.builder()
+                    .driverId(driver.driverId())
+                    .lat(driver.lat())
+                    .lng(driver.lng())
+                    .status(driver.status())
+                    .tier(driver.tier())
+                    .distanceKm(candidate.distanceKm())
+                    .build());
+        }
+        return result;
+    }
+
+    /**
+     * Drop drivers that have not pinged for longer than the staleness window
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.geo.evict-interval-ms:60000}")
+    public void evictStale() {
+        long cutoff = System.currentTimeMillis() - staleAfterMillis;
+        int evicted = 0;
+        for (String driverId : drivers.keySet()) {
+            boolean[] removed = new boolean[1];
+            drivers.computeIfPresent(driverId, (id, current) -> {
+                if (current.updatedAt() >= cutoff) {
+                    return current;
+                }
+                relink(current, null);
+                for (Listener listener : listeners) {
+                    listener.driverEvicted(id);
+                }
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.info("Evicted stale drivers from grid index: evicted={}, remaining={}", evicted, drivers.size());
+        }
+    }
+
+    private void scanCell(long cellKey, double lat, double lng, int k, double radiusKm, String tier,
+            long freshSince, PriorityQueue<Candidate> best) {
+        ConcurrentHashMap<String, IndexedDriver> members = cells.get(cellKey);
+        if (members == null) {
+            return;
+        }
+        for (IndexedDriver driver : members.values()) {
+            if (driver.updatedAt() < freshSince) {
+                continue;
+            }
+            if (tier != null && !tier.equals(driver.tier())) {
+                continue;
+            }
+            double distance = GeoUtils.getDistance(lat, lng, driver.lat(), driver.lng());
+            if (distance > radiusKm) {
+                continue;
+            }
+            if (best.size() < k) {
+                best.add(new Candidate(driver, distance));
+            } else if (distance < best.peek().distanceKm()) {
+                best.poll();
+                best.add(new Candidate(driver, distance));
+            }
+        }
+    }
+
+    /**
+     * Move a driver between cells. Called from inside drivers.compute so updates for
+     * the same driver are serialized.
+     */
+    private void relink(IndexedDriver old, IndexedDriver next) {
+        boolean wasLinked = old != null && STATUS_ONLINE.equals(old.status());
+        boolean willLink = next != null && STATUS_ONLINE.equals(next.status());
+
+        if (wasLinked && (!willLink || old.cellKey() != next.cellKey())) {
+            cells.computeIfPresent(old.cellKey(), (key, members) -> {
+                members.remove(old.driverId());
+                return members.isEmpty() ? null : members;
+            });
+        }
+        if (willLink) {
+            cells.compute(next.cellKey(), (key, members) -> {
+                ConcurrentHashMap<String, IndexedDriver> target = members != null ? members : new ConcurrentHashMap<>();
+                target.put(next.driverId(), next);
+                return target;
+            });
+        }
+        if ((wasLinked || willLink) && !listeners.isEmpty()) {
+            IndexedDriver before = wasLinked ? old : null;
+            IndexedDriver after = willLink ? next : null;
+            for (Listener listener : listeners) {
+                listener.onlineDriverChanged(before, after);
+            }
+        }
+    }
+
+    /**
+     * Notified from inside the per-driver update, so calls for one driver never
+     * interleave. Implementations must be fast and must not call back into the index.
+     */
+    public interface Listener {
+
+        /**
+         * @param before the driver's previous online entry, or null if it was not online
+         * @param after  the driver's new online entry, or null if it is no longer online
+         */
+        default void onlineDriverChanged(IndexedDriver before, IndexedDriver after) {
+        }
+
+        /**
+         * The driver stopped pinging and was dropped from the index, whatever its status
+         */
+        default void driverEvicted(String driverId) {
+        }
+    }
+
+    public record IndexedDriver(String driverId, double lat, double lng, String tier, String status,
+            long cellKey, long updatedAt) {
+    }
+
+    private record Candidate(IndexedDriver driver, double distanceKm) {
+    }
+}
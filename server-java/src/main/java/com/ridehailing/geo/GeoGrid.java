@@ -0,0 +1,67 @@
+package com.ridehailing.geo;
+
+/**
+ * Uniform lat/lng grid used to bucket drivers into cells.
+ * Cells are addressed by (row, col) and packed into a single long key.
+ */
+public class GeoGrid {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private final double cellSizeDeg;
+
+    public GeoGrid(double cellSizeDeg) {
+        if (cellSizeDeg <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSizeDeg = cellSizeDeg;
+    }
+
+    public double getCellSizeDeg() {
+        return cellSizeDeg;
+    }
+
+    public int row(double lat) {
+        return (int) Math.floor(lat / cellSizeDeg);
+    }
+
+    public int col(double lng) {
+        return (int) Math.floor(lng / cellSizeDeg);
+    }
+
+    public long cellOf(double lat, double lng) {
+        return key(row(lat), col(lng));
+    }
+
+    public static long key(int row, int col) {
+        return ((long) row << 32) | (col & 0xFFFFFFFFL);
+    }
+
+    public static int rowOf(long key) {
+        return (int) (key >> 32);
+    }
+
+    public static int colOf(long key) {
+        return (int) key;
+    }
+
+    /**
+     * Public cell identifier, e.g. "1745_7835"
+     */
+    public static String cellId(long key) {
+        return rowOf(key) + "_" + colOf(key);
+    }
+
+    /**
+     * Lower bound (km) on the distance from a point inside the centre cell to any
+     * point in a cell that is more than {@code ring} rings away.
+     * Uses the narrowest cell width that can occur within that ring so the bound
+     * stays conservative away from the equator.
+     */
+    public double minDistanceBeyondRing(double lat, int ring) {
+        double heightKm = cellSizeDeg * KM_PER_DEGREE;
+        double farthestLat = Math.min(89.0, Math.abs(lat) + (ring + 1) * cellSizeDeg);
+        double widthKm = heightKm * Math.cos(Math.toRadians(farthestLat));
+        return ring * Math.min(heightKm, widthKm);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ridehailing.location;
+
+/**
+ * Latest known position of a driver as held by a {@link DriverLocationStore}.
+ * A null status keeps the stored one (online for a driver not yet stored); status
+ * changes go through {@link DriverLocationStore#updateStatus}.
+ */
+public record DriverLocation(String driverId, double lat, double lng, String status, String tier, long timestamp) {
+}
@@ -0,0 +1,40 @@
+package com.ridehailing.location;
+
+import com.ridehailing.dto.NearbyDriver;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Shared live map of driver positions.
+ *
+ * The Redis implementation lets several server nodes see the same drivers; the
+ * in-memory implementation stands in for it in tests and local benchmarks.
+ */
+public interface DriverLocationStore {
+
+    /**
+     * Store a single driver position; a null status leaves the stored status alone
+     */
+    void save(DriverLocation location);
+
+    /**
+     * Store many driver positions in one round trip
+     */
+    void saveAll(Collection<DriverLocation> locations);
+
+    /**
+     * Update the status of a driver without moving it
+     */
+    void updateStatus(String driverId, String status);
+
+    /**
+     * Drivers within radiusKm of a point, nearest first
+     */
+    List<NearbyDriver> searchRadius(double lat, double lng, double radiusKm, int limit);
+
+    /**
+     * Forget drivers whose last position is older than the given epoch millis
+     */
+    int pruneOlderThan(long cutoffMillis);
+}
@@ -0,0 +1,82 @@
+package com.ridehailing.location;
+
+import com.ridehailing.dto.NearbyDriver;
+import com.ridehailing.util.GeoUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-local driver location store for tests and local benchmarks.
+ * Enabled with ridehailing.location-store=memory; no Redis server is needed.
+ */
+@Component
+@ConditionalOnProperty(name = "ridehailing.location-store", havingValue = "memory")
+public class InMemoryDriverLocationStore implements DriverLocationStore {
+
+    private final ConcurrentHashMap<String, DriverLocation> locations = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(DriverLocation location) {
+        locations.compute(location.driverId(), (id, current) ->
+                withStatus(location, current != null ? current.status() : "online"));
+    }
+
+    @Override
+    public void saveAll(Collection<DriverLocation> batch) {
+        for (DriverLocation location : batch) {
+            save(location);
+        }
+    }
+
+    @Override
+    public void updateStatus(String driverId, String status) {
+        locations.computeIfPresent(driverId, (id, current) -> new DriverLocation(
+                id, current.lat(), current.lng(), status, current.tier(), current.timestamp()));
+    }
+
+    @Override
+    public List<NearbyDriver> searchRadius(double lat, double lng, double radiusKm, int limit) {
+        List<NearbyDriver> matches = new ArrayList<>();
+        for (DriverLocation location : locations.values()) {
+            double distance = GeoUtils.getDistance(lat, lng, location.lat(), location.lng());
+            if (distance <= radiusKm) {
+                matches.add(toNearbyDriver(location, distance));
+            }
+        }
+        matches.sort(Comparator.comparingDouble(NearbyDriver::getDistanceKm));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    @Override
+    public int pruneOlderThan(long cutoffMillis) {
+        int before = locations.size();
+        locations.values().removeIf(location -> location.timestamp() < cutoffMillis);
+        return before - locations.size();
+    }
+
+    private static DriverLocation withStatus(DriverLocation location, String fallback) {
+        return location.status() != null ? location : new DriverLocation(location.driverId(),
+                location.lat(), location.lng(), fallback, location.tier(), location.timestamp());
+    }
+
+    public int size() {
+        return locations.size();
+    }
+
+    private NearbyDriver toNearbyDriver(DriverLocation location, double distance) {
+        return NearbyDriver.builder()
+                .driverId(location.driverId())
+                .lat(location.lat())
+                .lng(location.lng())
+                .status(location.status())
+                .tier(location.tier())
+                .distanceKm(distance)
+                .build();
+    }
+}
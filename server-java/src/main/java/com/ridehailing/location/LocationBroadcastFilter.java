@@ -0,0 +1,171 @@
+package com.ridehailing.location;
+
+import com.ridehailing.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thins driver location fan-out.
+ *
+ * Remembers where each driver was last broadcast and lets a new position through
+ * only if the driver moved at least min-distance-m since then, turned by at least
+ * min-heading-delta-deg (once it has moved min-heading-move-m, so GPS jitter does
+ * not read as a turn), changed cell, status or tier, or max-interval-ms passed since
+ * the last broadcast. Ingest is not affected: every ping still reaches the index,
+ * the location store and the write-behind buffer.
+ *
+ * Speed is measured between consecutive pings, so clients can dead-reckon between
+ * the sparser broadcasts when SocketService is set to send it.
+ */
+@Component
+public class LocationBroadcastFilter {
+
+    private final boolean enabled;
+    private final double minDistanceKm;
+    private final double minHeadingMoveKm;
+    private final double minHeadingDeltaDeg;
+    private final long maxIntervalMs;
+    private final long staleAfterMs;
+
+    private final ConcurrentHashMap<String, State> states = new ConcurrentHashMap<>();
+
+    private final Counter broadcast;
+    private final Counter suppressed;
+
+    public LocationBroadcastFilter(MeterRegistry meterRegistry,
+            @Value("${ridehailing.socket.location.suppression.enabled:true}") boolean enabled,
+            @Value("${ridehailing.socket.location.suppression.min-distance-m:30}") double minDistanceM,
+            @Value("${ridehailing.socket.location.suppression.min-heading-move-m:10}") double minHeadingMoveM,
+            @Value("${ridehailing.socket.location.suppression.min-heading-delta-deg:30}") double minHeadingDeltaDeg,
+            @Value("${ridehailing.socket.location.suppression.max-interval-ms:10000}") long maxIntervalMs,
+            @Value("${ridehailing.geo.stale-after-seconds:300}") long staleAfterSeconds) {
+        this.enabled = enabled;
+        this.minDistanceKm = minDistanceM / 1000.0;
+        this.minHeadingMoveKm = minHeadingMoveM / 1000.0;
+        this.minHeadingDeltaDeg = minHeadingDeltaDeg;
+        this.maxIntervalMs = maxIntervalMs;
+        this.staleAfterMs = staleAfterSeconds * 1000L;
+
+        this.broadcast = updateCounter(meterRegistry, "broadcast");
+        this.suppressed = updateCounter(meterRegistry, "suppressed");
+        Gauge.builder("ridehailing.websocket.location.suppression.ratio", this, LocationBroadcastFilter::suppressionRatio)
+                .description("Share of driver location updates not re-broadcast since startup")
+                .register(meterRegistry);
+        Gauge.builder("ridehailing.websocket.location.tracked", states, ConcurrentHashMap::size)
+                .description("Drivers with a remembered last-broadcast position")
+                .register(meterRegistry);
+    }
+
+    private static Counter updateCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ridehailing.websocket.location.updates")
+                .description("Driver location updates offered for fan-out by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * What to send for a position that passed the filter
+     *
+     * @param previousLat last broadcast position, null if the driver had none
+     * @param heading     degrees clockwise from north, NaN if unknown
+     * @param speedMps    metres per second since the previous ping, NaN if unknown
+     */
+    public record Broadcast(Double previousLat, Double previousLng, double heading, double speedMps) {
+    }
+
+    /**
+     * Offer a driver's new position for fan-out.
+     *
+     * @param cellKey broadcast cell of the position; a cell change always passes
+     * @return null if the update should not be broadcast
+     */
+    public Broadcast offer(String driverId, double lat, double lng, long cellKey, String status, String tier,
+            long ts) {
+        Broadcast[] result = new Broadcast[1];
+        states.compute(driverId, (id, state) -> {
+            if (state == null) {
+                result[0] = new Broadcast(null, null, Double.NaN, Double.NaN);
+                return new State(lat, lng, ts, lat, lng, cellKey, Double.NaN, ts, status, tier);
+            }
+
+            double speed = Double.NaN;
+            if (ts > state.seenTs()) {
+                double stepKm = GeoUtils.getDistance(state.seenLat(), state.seenLng(), lat, lng);
+                speed = stepKm * 1_000_000.0 / (ts - state.seenTs());
+            }
+
+            double movedKm = GeoUtils.getDistance(state.sentLat(), state.sentLng(), lat, lng);
+            double heading = movedKm >= minHeadingMoveKm
+                    ? GeoUtils.getBearing(state.sentLat(), state.sentLng(), lat, lng)
+                    : state.sentHeading();
+
+            boolean send = !enabled
+                    || cellKey != state.sentCellKey()
+                    || !Objects.equals(status, state.status())
+                    || !Objects.equals(tier, state.tier())
+                    || ts - state.sentTs() >= maxIntervalMs
+                    || movedKm >= minDistanceKm
+                    || (movedKm >= minHeadingMoveKm && !Double.isNaN(state.sentHeading())
+                            && headingDelta(heading, state.sentHeading()) >= minHeadingDeltaDeg);
+            if (!send) {
+                result[0] = null;
+                return state.seen(lat, lng, ts);
+            }
+            result[0] = new Broadcast(state.sentLat(), state.sentLng(), heading, speed);
+            return new State(lat, lng, ts, lat, lng, cellKey, heading, ts, status, tier);
+        });
+
+        if (result[0] == null) {
+            suppressed.increment();
+        } else {
+            broadcast.increment();
+        }
+        return result[0];
+    }
+
+    /**
+     * Drop the remembered position so the driver's next update is broadcast
+     * (e.g. after it went offline)
+     */
+    public void forget(String driverId) {
+        states.remove(driverId);
+    }
+
+    /**
+     * Forget drivers that stopped pinging without going offline
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.geo.evict-interval-ms:60000}")
+    public void pruneStale() {
+        long cutoff = System.currentTimeMillis() - staleAfterMs;
+        states.values().removeIf(state -> state.seenTs() < cutoff);
+    }
+
+    private double suppressionRatio() {
+        double offered = broadcast.count() + suppressed.count();
+        return offered == 0 ? 0.0 : suppressed.count() / offered;
+    }
+
+    private static double headingDelta(double a, double b) {
+        double delta = Math.abs(a - b) % 360.0;
+        return delta > 180.0 ? 360.0 - delta : delta;
+    }
+
+    /**
+     * Last ping seen and last position broadcast for one driver
+     */
+    private record State(double seenLat, double seenLng, long seenTs,
+            double sentLat, double sentLng, long sentCellKey, double sentHeading, long sentTs,
+            String status, String tier) {
+
+        State seen(double lat, double lng, long ts) {
+            return new State(lat, lng, ts, sentLat, sentLng, sentCellKey, sentHeading, sentTs, status, tier);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.ridehailing.location;
+
+import com.ridehailing.dto.NearbyDriver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.GeoResult;
+import org.springframework.data.geo.GeoResults;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.redis.connection.RedisGeoCommands;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.domain.geo.GeoReference;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Redis-backed driver location store.
+ *
+ * Each position write is one pipelined round trip: GEOADD into the shared geo set,
+ * HSET of the driver hash, EXPIRE on the hash and ZADD into a last-seen index that
+ * drives pruning of drivers that stopped pinging. A status change is HSET and EXPIRE
+ * in one round trip, so a hash it creates for a driver with no position yet still
+ * expires.
+ */
+@Component
+@ConditionalOnProperty(name = "ridehailing.location-store", havingValue = "redis", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class RedisDriverLocationStore implements DriverLocationStore {
+
+    private static final String DRIVERS_LOCATION_KEY = "drivers:locations";
+    private static final String DRIVERS_LAST_SEEN_KEY = "drivers:last_seen";
+    private static final long DRIVER_HASH_TTL_SECONDS = Duration.ofHours(1).toSeconds();
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Override
+    public void save(DriverLocation location) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            write((StringRedisConnection) connection, location);
+            return null;
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<DriverLocation> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (DriverLocation location : locations) {
+                write(redis, location);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void updateStatus(String driverId, String status) {
+        String driverKey = driverKey(driverId);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.hSet(driverKey, "status", status);
+            redis.expire(driverKey, DRIVER_HASH_TTL_SECONDS);
+            return null;
+        });
+    }
+
+    @Override
+    public List<NearbyDriver> searchRadius(double lat, double lng, double radiusKm, int limit) {
+        GeoResults<RedisGeoCommands.GeoLocation<String>> results = redisTemplate.opsForGeo().search(
+                DRIVERS_LOCATION_KEY,
+                GeoReference.fromCoordinate(lng, lat),
+                new Distance(radiusKm, Metrics.KILOMETERS),
+                RedisGeoCommands.GeoSearchCommandArgs.newGeoSearchArgs()
+                        .includeCoordinates()
+                        .includeDistance()
+                        .sortAscending()
+                        .limit(limit));
+
+        if (results == null || results.getContent().isEmpty()) {
+            return List.of();
+        }
+        List<GeoResult<RedisGeoCommands.GeoLocation<String>>> hits = results.getContent();
+
+        // Hydrate status and tier for all hits in one more round trip
+        List<Object> details = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            for (GeoResult<RedisGeoCommands.GeoLocation<String>> hit : hits) {
+                redis.hMGet(driverKey(hit.getContent().getName()), "status", "tier");
+            }
+            return null;
+        });
+
+        List<NearbyDriver> drivers = new ArrayList<>(hits.size());
+        for (int i = 0; i < hits.size(); i++) {
+            GeoResult<RedisGeoCommands.GeoLocation<String>> hit = hits.get(i);
+            Point point = hit.getContent().getPoint();
+            @SuppressWarnings("unchecked")
+            List<String> fields = i < details.size() ? (List<String>) details.get(i) : null;
+            drivers.add(NearbyDriver.builder()
+                    .driverId(hit.getContent().getName())
+                    .lat(point.getY())
+                    .lng(point.getX())
+                    .status(fields != null ? fields.get(0) : null)
+                    .tier(fields != null ? fields.get(1) : null)
+                    .distanceKm(hit.getDistance().getValue())
+                    .build());
+        }
+        return drivers;
+    }
+
+    @Override
+    public int pruneOlderThan(long cutoffMillis) {
+        Set<String> stale = redisTemplate.opsForZSet().rangeByScore(DRIVERS_LAST_SEEN_KEY, 0, cutoffMillis);
+        if (stale == null || stale.isEmpty()) {
+            return 0;
+        }
+        String[] members = stale.toArray(new String[0]);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection redis = (StringRedisConnection) connection;
+            redis.zRem(DRIVERS_LOCATION_KEY, members);
+            redis.zRem(DRIVERS_LAST_SEEN_KEY, members);
+            return null;
+        });
+        log.info("Pruned stale drivers from Redis geo set: count={}", members.length);
+        return members.length;
+    }
+
+    private void write(StringRedisConnection redis, DriverLocation location) {
+        String driverKey = driverKey(location.driverId());
+        redis.geoAdd(DRIVERS_LOCATION_KEY, new Point(location.lng(), location.lat()), location.driverId());
+        redis.hMSet(driverKey, Map.of(
+                "name", "Driver " + location.driverId(),
+                "tier", location.tier(),
+                "lat", Double.toString(location.lat()),
+                "lng", Double.toString(location.lng()),
+                "updatedAt", Long.toString(location.timestamp())));
+        // Pings carry no status, so they never overwrite a concurrent status change
+        if (location.status() != null) {
+            redis.hSet(driverKey, "status", location.status());
+        } else {
+            redis.hSetNX(driverKey, "status", "online");
+        }
+        redis.expire(driverKey, DRIVER_HASH_TTL_SECONDS);
+        redis.zAdd(DRIVERS_LAST_SEEN_KEY, location.timestamp(), location.driverId());
+    }
+
+    private static String driverKey(String driverId) {
+        return "driver:" + driverId;
+    }
+}
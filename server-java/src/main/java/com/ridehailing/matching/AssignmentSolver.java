@@ -0,0 +1,155 @@
+package com.ridehailing.matching;
+
+import java.util.Arrays;
+
+/**
+ * Ride-driver assignment minimizing total pickup cost.
+ *
+ * Small batches are solved exactly with the Hungarian algorithm (O(n^2 m) on a dense
+ * cost matrix). Large batches use a greedy heuristic over the sparse candidate
+ * edges: cheapest edge first, skipping rides and drivers already taken.
+ */
+public final class AssignmentSolver {
+
+    public static final int UNASSIGNED = -1;
+
+    // Cost used for pairs that are not candidates; such assignments are discarded
+    private static final double NO_EDGE = 1e9;
+
+    private AssignmentSolver() {
+    }
+
+    /**
+     * @return for each ride the index of its assigned driver, or {@link #UNASSIGNED}
+     */
+    public static int[] solve(int rides, int drivers, CandidateEdges edges, int exactLimit) {
+        if (rides <= exactLimit && drivers <= exactLimit) {
+            return exact(rides, drivers, edges);
+        }
+        return greedy(rides, drivers, edges);
+    }
+
+    public static int[] greedy(int rides, int drivers, CandidateEdges edges) {
+        int[] assignment = new int[rides];
+        Arrays.fill(assignment, UNASSIGNED);
+        boolean[] driverTaken = new boolean[drivers];
+
+        // Pack (cost, edge) into one long so a primitive sort orders edges by cost.
+        // Non-negative float bit patterns sort in the same order as their values.
+        int edgeCount = edges.size();
+        long[] order = new long[edgeCount];
+        for (int e = 0; e < edgeCount; e++) {
+            order[e] = ((long) Float.floatToIntBits((float) edges.cost(e)) << 32) | e;
+        }
+        Arrays.sort(order);
+
+        int remaining = Math.min(rides, drivers);
+        for (int k = 0; k < edgeCount && remaining > 0; k++) {
+            int e = (int) order[k];
+            int ride = edges.ride(e);
+            int driver = edges.driver(e);
+            if (assignment[ride] == UNASSIGNED && !driverTaken[driver]) {
+                assignment[ride] = driver;
+                driverTaken[driver] = true;
+                remaining--;
+            }
+        }
+        return assignment;
+    }
+
+    public static int[] exact(int rides, int drivers, CandidateEdges edges) {
+        int[] assignment = new int[rides];
+        Arrays.fill(assignment, UNASSIGNED);
+        if (rides == 0 || drivers == 0) {
+            return assignment;
+        }
+
+        // The Hungarian formulation below needs rows <= columns
+        boolean transposed = rides > drivers;
+        int rows = transposed ? drivers : rides;
+        int cols = transposed ? rides : drivers;
+
+        double[][] cost = new double[rows + 1][cols + 1];
+        for (double[] row : cost) {
+            Arrays.fill(row, NO_EDGE);
+        }
+        for (int e = 0; e < edges.size(); e++) {
+            int row = (transposed ? edges.driver(e) : edges.ride(e)) + 1;
+            int col = (transposed ? edges.ride(e) : edges.driver(e)) + 1;
+            cost[row][col] = Math.min(cost[row][col], edges.cost(e));
+        }
+
+        int[] rowOfCol = hungarian(cost, rows, cols);
+
+        for (int col = 1; col <= cols; col++) {
+            int row = rowOfCol[col];
+            if (row == 0 || cost[row][col] >= NO_EDGE) {
+                continue;
+            }
+            if (transposed) {
+                assignment[col - 1] = row - 1;
+            } else {
+                assignment[row - 1] = col - 1;
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * Shortest augmenting path Hungarian algorithm on a 1-indexed cost matrix.
+     *
+     * @return for each column the row assigned to it (0 = none)
+     */
+    private static int[] hungarian(double[][] cost, int rows, int cols) {
+        double[] u = new double[rows + 1];
+        double[] v = new double[cols + 1];
+        int[] rowOfCol = new int[cols + 1];
+        int[] way = new int[cols + 1];
+        double[] minv = new double[cols + 1];
+        boolean[] used = new boolean[cols + 1];
+
+        for (int row = 1; row <= rows; row++) {
+            rowOfCol[0] = row;
+            int col0 = 0;
+            Arrays.fill(minv, Double.POSITIVE_INFINITY);
+            Arrays.fill(used, false);
+
+            do {
+                used[col0] = true;
+                int row0 = rowOfCol[col0];
+                double delta = Double.POSITIVE_INFINITY;
+                int col1 = 0;
+                for (int col = 1; col <= cols; col++) {
+                    if (used[col]) {
+                        continue;
+                    }
+                    double reduced = cost[row0][col] - u[row0] - v[col];
+                    if (reduced < minv[col]) {
+                        minv[col] = reduced;
+                        way[col] = col0;
+                    }
+                    if (minv[col] < delta) {
+                        delta = minv[col];
+                        col1 = col;
+                    }
+                }
+                for (int col = 0; col <= cols; col++) {
+                    if (used[col]) {
+                        u[rowOfCol[col]] += delta;
+                        v[col] -= delta;
+                    } else {
+                        minv[col] -= delta;
+                    }
+                }
+                col0 = col1;
+            } while (rowOfCol[col0] != 0);
+
+            do {
+                int col1 = way[col0];
+                rowOfCol[col0] = rowOfCol[col1];
+                col0 = col1;
+            } while (col0 != 0);
+        }
+        return rowOfCol;
+    }
+}
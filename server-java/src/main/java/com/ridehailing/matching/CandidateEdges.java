@@ -0,0 +1,50 @@
+package com.ridehailing.matching;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of (ride, driver, cost) candidate pairs stored in primitive arrays
+ */
+public class CandidateEdges {
+
+    private int[] rides;
+    private int[] drivers;
+    private double[] costs;
+    private int size;
+
+    public CandidateEdges(int expectedSize) {
+        int capacity = Math.max(16, expectedSize);
+        this.rides = new int[capacity];
+        this.drivers = new int[capacity];
+        this.costs = new double[capacity];
+    }
+
+    public void add(int ride, int driver, double cost) {
+        if (size == rides.length) {
+            int capacity = size * 2;
+            rides = Arrays.copyOf(rides, capacity);
+            drivers = Arrays.copyOf(drivers, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+        }
+        rides[size] = ride;
+        drivers[size] = driver;
+        costs[size] = cost;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int ride(int edge) {
+        return rides[edge];
+    }
+
+    public int driver(int edge) {
+        return drivers[edge];
+    }
+
+    public double cost(int edge) {
+        return costs[edge];
+    }
+}
@@ -0,0 +1,213 @@
+package com.ridehailing.matching;
+
+import com.ridehailing.dto.NearbyDriver;
+import com.ridehailing.exception.RideNotAvailableException;
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.service.DispatchService;
+import com.ridehailing.service.RideService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional micro-batched matching engine.
+ *
+ * When enabled, new rides are pooled instead of being offered immediately. Every
+ * window the engine takes all pending rides, gathers candidate drivers from the grid
+ * index and solves the assignment that minimizes total pickup distance, then assigns
+ * through the regular acceptRide path. Rides left unmatched past the maximum wait are
+ * handed to targeted dispatch.
+ */
+@Service
+@Slf4j
+public class MatchingEngine {
+
+    private final DriverGridIndex driverGridIndex;
+    private final RideService rideService;
+    private final DispatchService dispatchService;
+
+    private final boolean enabled;
+    private final long windowMs;
+    private final long maxWaitMs;
+    private final int candidatesPerRide;
+    private final double maxPickupKm;
+    private final int exactLimit;
+
+    private final Timer solveTimer;
+    private final DistributionSummary batchSize;
+
+    private final ConcurrentHashMap<String, PendingRide> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    public MatchingEngine(DriverGridIndex driverGridIndex,
+            @Lazy RideService rideService,
+            DispatchService dispatchService,
+            MeterRegistry meterRegistry,
+            @Value("${ridehailing.matching.enabled:false}") boolean enabled,
+            @Value("${ridehailing.matching.window-ms:1500}") long windowMs,
+            @Value("${ridehailing.matching.max-wait-ms:10000}") long maxWaitMs,
+            @Value("${ridehailing.matching.candidates-per-ride:8}") int candidatesPerRide,
+            @Value("${ridehailing.matching.max-pickup-km:5}") double maxPickupKm,
+            @Value("${ridehailing.matching.exact-limit:150}") int exactLimit) {
+        this.driverGridIndex = driverGridIndex;
+        this.rideService = rideService;
+        this.dispatchService = dispatchService;
+        this.enabled = enabled;
+        this.windowMs = windowMs;
+        this.maxWaitMs = maxWaitMs;
+        this.candidatesPerRide = candidatesPerRide;
+        this.maxPickupKm = maxPickupKm;
+        this.exactLimit = exactLimit;
+
+        this.solveTimer = Timer.builder("ridehailing.matching.solve")
+                .description("Time to build candidates and solve one matching batch")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("ridehailing.matching.batch.size")
+                .description("Pending rides per matching tick")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matching-engine");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, windowMs, windowMs, TimeUnit.MILLISECONDS);
+        log.info("Matching engine started: windowMs={}, exactLimit={}", windowMs, exactLimit);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Add a newly requested ride to the next matching window
+     */
+    public void submit(Ride ride) {
+        pending.put(ride.getId(), new PendingRide(ride, System.currentTimeMillis()));
+    }
+
+    /**
+     * Remove a ride that was accepted or cancelled outside the engine
+     */
+    public void withdraw(String rideId) {
+        pending.remove(rideId);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    void tick() {
+        try {
+            List<PendingRide> batch = new ArrayList<>(pending.values());
+            if (batch.isEmpty()) {
+                return;
+            }
+            batchSize.record(batch.size());
+
+            List<String> driverIds = new ArrayList<>();
+            int[] assignment = solveTimer.record(() -> solve(batch, driverIds));
+
+            int assigned = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (assignment[i] != AssignmentSolver.UNASSIGNED
+                        && assign(batch.get(i).ride(), driverIds.get(assignment[i]))) {
+                    assigned++;
+                }
+            }
+
+            long expiredBefore = System.currentTimeMillis() - maxWaitMs;
+            for (PendingRide ride : batch) {
+                if (ride.enqueuedAt() < expiredBefore && pending.remove(ride.ride().getId(), ride)) {
+                    dispatchService.dispatch(ride.ride());
+                }
+            }
+
+            log.debug("Matching tick: rides={}, drivers={}, assigned={}", batch.size(), driverIds.size(), assigned);
+        } catch (Exception e) {
+            log.error("Matching tick failed", e);
+        }
+    }
+
+    /**
+     * Build candidate edges from the grid index and solve the assignment.
+     * Fills driverIds with the driver behind each column index.
+     */
+    int[] solve(List<PendingRide> batch, List<String> driverIds) {
+        Map<String, Integer> driverIndex = new HashMap<>();
+        CandidateEdges edges = new CandidateEdges(batch.size() * candidatesPerRide);
+
+        for (int i = 0; i < batch.size(); i++) {
+            Ride ride = batch.get(i).ride();
+            List<NearbyDriver> candidates = driverGridIndex.findNearest(
+                    ride.getPickupLat(), ride.getPickupLng(), candidatesPerRide, maxPickupKm, ride.getTier());
+            for (NearbyDriver candidate : candidates) {
+                Integer j = driverIndex.get(candidate.getDriverId());
+                if (j == null) {
+                    j = driverIds.size();
+                    driverIndex.put(candidate.getDriverId(), j);
+                    driverIds.add(candidate.getDriverId());
+                }
+                edges.add(i, j, candidate.getDistanceKm());
+            }
+        }
+
+        return AssignmentSolver.solve(batch.size(), driverIds.size(), edges, exactLimit);
+    }
+
+    private boolean assign(Ride ride, String driverId) {
+        try {
+            rideService.acceptRide(ride.getId(), driverId);
+            pending.remove(ride.getId());
+            return true;
+        } catch (RideNotAvailableException e) {
+            // Another driver claimed the ride first
+            pending.remove(ride.getId());
+            return false;
+        } catch (Exception e) {
+            log.warn("Matched assignment failed: rideId={}, driverId={}, error={}",
+                    ride.getId(), driverId, e.getMessage());
+            // Drop rides that are no longer requested; keep the rest for the next window
+            boolean stillRequested = rideService.getRideById(ride.getId())
+                    .map(current -> current.status() == RideStatus.REQUESTED)
+                    .orElse(false);
+            if (!stillRequested) {
+                pending.remove(ride.getId());
+            }
+            return false;
+        }
+    }
+
+    record PendingRide(Ride ride, long enqueuedAt) {
+    }
+}
@@ -25,6 +25,9 @@ public class Driver {
     @Builder.Default
     private String status = "offline"; // online, busy, offline
 
+    @Builder.Default
+    private String tier = "economy"; // economy, premium, luxury
+
     private Double lat;
 
     private Double lng;
@@ -0,0 +1,57 @@
+package com.ridehailing.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * Follow-up work committed in the same transaction as the change that needs it,
+ * and carried out afterwards by a background worker (see RideCompletionWorker).
+ * A row is deleted in the transaction that finishes its work.
+ */
+@Entity
+@Table(name = "Outbox", indexes = {
+        @Index(name = "idx_outbox_due", columnList = "type, next_attempt_at"),
+        @Index(name = "idx_outbox_ride", columnList = "ride_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEntry {
+
+    public static final String RIDE_COMPLETED = "ride_completed";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(name = "ride_id", nullable = false)
+    private String rideId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public static OutboxEntry rideCompleted(String rideId) {
+        LocalDateTime now = LocalDateTime.now();
+        return OutboxEntry.builder()
+                .type(RIDE_COMPLETED)
+                .rideId(rideId)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build();
+    }
+}
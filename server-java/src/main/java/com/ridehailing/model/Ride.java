@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "Ride", indexes = {
-        @Index(name = "idx_ride_status", columnList = "status"),
+        @Index(name = "idx_ride_state", columnList = "state"),
         @Index(name = "idx_ride_driver", columnList = "driver_id"),
         @Index(name = "idx_ride_rider", columnList = "rider_id"),
         @Index(name = "idx_ride_created", columnList = "created_at")
@@ -28,9 +28,16 @@ public class Ride {
     @JoinColumn(name = "driver_id")
     private Driver driver;
 
-    @Column(nullable = false)
+    // Stored as the RideStatus code; the default lets schema update add the column to existing tables
+    @Column(name = "state", nullable = false, columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private RideStatus status = RideStatus.REQUESTED;
+
+    // Bumped by every transition (RideTransitions); orders cache writes and versions the ETag
+    @Column(nullable = false, columnDefinition = "integer not null default 0")
     @Builder.Default
-    private String status = "requested"; // requested, assigned, started, paused, completed, cancelled
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private Long version = 0L;
 
     @Builder.Default
     private String tier = "economy"; // economy, premium, luxury
@@ -0,0 +1,65 @@
+package com.ridehailing.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+/**
+ * Ride lifecycle states.
+ *
+ * Stored as the small integer code (see RideStatusConverter) and sent to clients
+ * as the lowercase name. Codes are persisted: never renumber, only append.
+ */
+public enum RideStatus {
+    REQUESTED(0),
+    ASSIGNED(1),
+    STARTED(2),
+    PAUSED(3),
+    COMPLETED(4),
+    CANCELLED(5);
+
+    private static final RideStatus[] BY_CODE = new RideStatus[values().length];
+
+    static {
+        for (RideStatus status : values()) {
+            BY_CODE[status.code] = status;
+        }
+    }
+
+    private final int code;
+    private final String value;
+
+    RideStatus(int code) {
+        this.code = code;
+        this.value = name().toLowerCase();
+    }
+
+    public int code() {
+        return code;
+    }
+
+    @JsonValue
+    public String value() {
+        return value;
+    }
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == CANCELLED;
+    }
+
+    public static RideStatus fromCode(int code) {
+        if (code < 0 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown ride status code: " + code);
+        }
+        return BY_CODE[code];
+    }
+
+    @JsonCreator
+    public static RideStatus fromValue(String value) {
+        for (RideStatus status : values()) {
+            if (status.value.equals(value)) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ride status: " + value);
+    }
+}
@@ -0,0 +1,21 @@
+package com.ridehailing.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Persists RideStatus as its integer code
+ */
+@Converter(autoApply = true)
+public class RideStatusConverter implements AttributeConverter<RideStatus, Integer> {
+
+    @Override
+    public Integer convertToDatabaseColumn(RideStatus status) {
+        return status != null ? status.code() : null;
+    }
+
+    @Override
+    public RideStatus convertToEntityAttribute(Integer code) {
+        return code != null ? RideStatus.fromCode(code) : null;
+    }
+}
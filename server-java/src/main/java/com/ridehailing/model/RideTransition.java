@@ -0,0 +1,49 @@
+package com.ridehailing.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * The ride state machine: every allowed status change and the states it may start from.
+ *
+ * <pre>
+ * ACCEPT    requested                          -> assigned
+ * START     assigned                           -> started
+ * PAUSE     started                            -> paused
+ * RESUME    paused                             -> started
+ * COMPLETE  started, paused                    -> completed
+ * CANCEL    requested, assigned, started, paused -> cancelled
+ * </pre>
+ *
+ * Completed and cancelled are terminal. RideTransitions applies a transition as a
+ * single conditional UPDATE guarded by {@link #from()}.
+ */
+public enum RideTransition {
+    ACCEPT(RideStatus.ASSIGNED, EnumSet.of(RideStatus.REQUESTED)),
+    START(RideStatus.STARTED, EnumSet.of(RideStatus.ASSIGNED)),
+    PAUSE(RideStatus.PAUSED, EnumSet.of(RideStatus.STARTED)),
+    RESUME(RideStatus.STARTED, EnumSet.of(RideStatus.PAUSED)),
+    COMPLETE(RideStatus.COMPLETED, EnumSet.of(RideStatus.STARTED, RideStatus.PAUSED)),
+    CANCEL(RideStatus.CANCELLED,
+            EnumSet.of(RideStatus.REQUESTED, RideStatus.ASSIGNED, RideStatus.STARTED, RideStatus.PAUSED));
+
+    private final RideStatus to;
+    private final Set<RideStatus> from;
+
+    RideTransition(RideStatus to, Set<RideStatus> from) {
+        this.to = to;
+        this.from = from;
+    }
+
+    public RideStatus to() {
+        return to;
+    }
+
+    public Set<RideStatus> from() {
+        return from;
+    }
+
+    public boolean allowedFrom(RideStatus status) {
+        return from.contains(status);
+    }
+}
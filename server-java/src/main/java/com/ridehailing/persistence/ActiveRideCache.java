@@ -0,0 +1,169 @@
+package com.ridehailing.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehailing.model.Ride;
+import com.ridehailing.readmodel.RideView;
+import com.ridehailing.repository.RideRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded write-through cache of active rides, held as RideView read models.
+ *
+ * RideService puts every ride it creates or transitions, so reads by ID during the
+ * lifecycle (accept, start, pause, resume, end and client polling) are served from
+ * memory. Completed and cancelled rides stay for terminal-retention-seconds, long
+ * enough for the receipt and rating that follow, then the sweep drops them. A miss
+ * loads the ride with one projection query and caches it only if it is still active.
+ *
+ * Puts from different threads can arrive out of commit order, so an entry is only
+ * replaced by a newer ride version (every transition bumps it). Each entry is
+ * serialized once when it is stored, so GET /v1/rides/{id} writes the cached bytes.
+ * The ETag is the ride version plus a hash of those bytes: the same row always gets
+ * the same tag, cached or not, and across restarts.
+ */
+@Component
+@Slf4j
+public class ActiveRideCache {
+
+    private final RideRepository rideRepository;
+    private final ObjectMapper objectMapper;
+    private final int maxSize;
+    private final long terminalRetentionMs;
+
+    private final ConcurrentHashMap<String, CachedRide> rides = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public ActiveRideCache(RideRepository rideRepository, ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${ridehailing.rides.cache.max-size:50000}") int maxSize,
+            @Value("${ridehailing.rides.cache.terminal-retention-seconds:300}") long terminalRetentionSeconds) {
+        this.rideRepository = rideRepository;
+        this.objectMapper = objectMapper;
+        this.maxSize = maxSize;
+        this.terminalRetentionMs = terminalRetentionSeconds * 1000L;
+
+        this.hits = lookupCounter(meterRegistry, "hit");
+        this.misses = lookupCounter(meterRegistry, "miss");
+        Gauge.builder("ridehailing.rides.cache.size", rides, ConcurrentHashMap::size)
+                .description("Rides held in the active ride cache")
+                .register(meterRegistry);
+        Gauge.builder("ridehailing.rides.cache.hit.ratio", this, ActiveRideCache::hitRatio)
+                .description("Share of ride lookups served from memory since startup")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("ridehailing.rides.cache.lookups")
+                .description("Ride lookups by ID by cache result")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * A cached ride, its JSON and the ETag of this version of it
+     *
+     * @param terminalAt when the ride was seen completed or cancelled, 0 while active
+     */
+    public record CachedRide(RideView ride, byte[] json, String etag, long terminalAt) {
+    }
+
+    /**
+     * Look a ride up, loading it from the database on a miss
+     */
+    public Optional<CachedRide> get(String rideId) {
+        CachedRide cached = rides.get(rideId);
+        if (cached != null) {
+            hits.increment();
+            return Optional.of(cached);
+        }
+        misses.increment();
+
+        Optional<RideView> loaded = rideRepository.findViewById(rideId);
+        if (loaded.isEmpty()) {
+            return Optional.empty();
+        }
+        CachedRide entry = entry(loaded.get());
+        if (entry.terminalAt() != 0) {
+            return Optional.of(entry);
+        }
+        return Optional.of(store(entry));
+    }
+
+    /**
+     * Write through the ride as just committed
+     */
+    public CachedRide put(Ride ride) {
+        return store(entry(RideView.of(ride)));
+    }
+
+    public int size() {
+        return rides.size();
+    }
+
+    /**
+     * Drop completed and cancelled rides past their retention
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.rides.cache.sweep-interval-ms:30000}")
+    public void evictTerminal() {
+        long cutoff = System.currentTimeMillis() - terminalRetentionMs;
+        int before = rides.size();
+        rides.values().removeIf(entry -> entry.terminalAt() != 0 && entry.terminalAt() < cutoff);
+        int evicted = before - rides.size();
+        if (evicted > 0) {
+            log.debug("Evicted finished rides from cache: evicted={}, remaining={}", evicted, rides.size());
+        }
+    }
+
+    /**
+     * Cache an entry unless a newer version of the ride is already held
+     *
+     * @return the entry now current for the ride
+     */
+    private CachedRide store(CachedRide entry) {
+        CachedRide[] current = new CachedRide[1];
+        rides.compute(entry.ride().id(), (id, held) -> {
+            if (held != null && held.ride().version() >= entry.ride().version()) {
+                current[0] = held;
+                return held;
+            }
+            current[0] = entry;
+            return held != null || hasRoom() ? entry : null;
+        });
+        return current[0];
+    }
+
+    private CachedRide entry(RideView ride) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(ride);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize ride " + ride.id(), e);
+        }
+        String etag = "\"" + Long.toHexString(ride.version()) + "-"
+                + Integer.toHexString(Arrays.hashCode(json)) + "\"";
+        long terminalAt = ride.status() != null && ride.status().isTerminal() ? System.currentTimeMillis() : 0;
+        return new CachedRide(ride, json, etag, terminalAt);
+    }
+
+    // Full: new rides are not cached (reads fall back to the database) until the sweep makes room
+    private boolean hasRoom() {
+        return rides.size() < maxSize;
+    }
+
+    private double hitRatio() {
+        double lookups = hits.count() + misses.count();
+        return lookups == 0 ? 0.0 : hits.count() / lookups;
+    }
+}
@@ -0,0 +1,191 @@
+package com.ridehailing.persistence;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for driver position and status.
+ *
+ * The ping path only records the latest state per driver in memory; a scheduled
+ * flush upserts dirty drivers into the Driver table in batched JDBC transactions.
+ * Repeated pings for the same driver between flushes collapse into one row write.
+ * Batches are written through SqliteWriter like every other write.
+ *
+ * Position pings record no status: status only changes through {@link #recordStatus},
+ * so a ping read from a stale index can never undo a concurrent busy or offline.
+ * A driver first seen through a ping is inserted as online.
+ */
+@Component
+@Slf4j
+public class DriverWriteBehindBuffer {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO Driver (id, name, status, tier, lat, lng, average_rating, total_ratings, created_at)
+            VALUES (?, ?, COALESCE(?, 'online'), ?, ?, ?, 0.0, 0, ?)
+            ON CONFLICT(id) DO UPDATE SET
+                status = COALESCE(?, Driver.status),
+                tier = COALESCE(excluded.tier, Driver.tier),
+                lat = COALESCE(excluded.lat, Driver.lat),
+                lng = COALESCE(excluded.lng, Driver.lng)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriter sqliteWriter;
+    private final int maxBatchSize;
+
+    private final ConcurrentHashMap<String, PendingDriver> dirty = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final DistributionSummary batchSize;
+    private final Timer flushLag;
+    private final Timer flushDuration;
+
+    public DriverWriteBehindBuffer(JdbcTemplate jdbcTemplate,
+            SqliteWriter sqliteWriter,
+            MeterRegistry meterRegistry,
+            @Value("${ridehailing.writebehind.max-batch-size:500}") int maxBatchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqliteWriter = sqliteWriter;
+        this.maxBatchSize = maxBatchSize;
+
+        this.batchSize = DistributionSummary.builder("ridehailing.driver.writebehind.batch.size")
+                .description("Drivers upserted per write-behind transaction")
+                .register(meterRegistry);
+        this.flushLag = Timer.builder("ridehailing.driver.writebehind.lag")
+                .description("Age of the oldest change in each flushed batch")
+                .register(meterRegistry);
+        this.flushDuration = Timer.builder("ridehailing.driver.writebehind.flush")
+                .description("Time spent writing one write-behind batch")
+                .register(meterRegistry);
+        Gauge.builder("ridehailing.driver.writebehind.pending", dirty, ConcurrentHashMap::size)
+                .description("Drivers with unflushed changes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record the latest position of a driver. Null lat/lng/tier keep the stored value.
+     */
+    public void record(String driverId, Double lat, Double lng, String tier) {
+        record(driverId, lat, lng, null, tier);
+    }
+
+    private void record(String driverId, Double lat, Double lng, String status, String tier) {
+        long now = System.currentTimeMillis();
+        dirty.merge(driverId, new PendingDriver(driverId, lat, lng, status, tier, now), PendingDriver::overlay);
+    }
+
+    /**
+     * Record a status change without moving the driver
+     */
+    public void recordStatus(String driverId, String status) {
+        record(driverId, null, null, status, null);
+    }
+
+    public int pendingCount() {
+        return dirty.size();
+    }
+
+    @Scheduled(fixedDelayString = "${ridehailing.writebehind.flush-interval-ms:2000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (!dirty.isEmpty()) {
+                List<PendingDriver> batch = drain();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                if (!write(batch)) {
+                    return;
+                }
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Flushing driver write-behind buffer on shutdown: pending={}", dirty.size());
+        flush();
+    }
+
+    private List<PendingDriver> drain() {
+        List<PendingDriver> batch = new ArrayList<>(Math.min(maxBatchSize, dirty.size()));
+        Iterator<String> ids = dirty.keySet().iterator();
+        while (ids.hasNext() && batch.size() < maxBatchSize) {
+            PendingDriver pending = dirty.remove(ids.next());
+            if (pending != null) {
+                batch.add(pending);
+            }
+        }
+        return batch;
+    }
+
+    private boolean write(List<PendingDriver> batch) {
+        long started = System.nanoTime();
+        try {
+            Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+            sqliteWriter.executeWithoutResult(() -> jdbcTemplate.batchUpdate(UPSERT_SQL, batch,
+                    batch.size(), (ps, pending) -> {
+                        ps.setString(1, pending.driverId());
+                        ps.setString(2, "Driver " + pending.driverId());
+                        ps.setString(3, pending.status());
+                        ps.setObject(4, pending.tier());
+                        ps.setObject(5, pending.lat());
+                        ps.setObject(6, pending.lng());
+                        ps.setTimestamp(7, createdAt);
+                        ps.setString(8, pending.status());
+                    }));
+        } catch (Exception e) {
+            log.error("Driver write-behind flush failed, re-queueing: size={}", batch.size(), e);
+            // Changes recorded since the drain win over the failed batch
+            for (PendingDriver pending : batch) {
+                dirty.merge(pending.driverId(), pending, (newer, failed) -> failed.overlay(newer));
+            }
+            return false;
+        }
+
+        long now = System.currentTimeMillis();
+        long oldest = now;
+        for (PendingDriver pending : batch) {
+            oldest = Math.min(oldest, pending.dirtySince());
+        }
+        batchSize.record(batch.size());
+        flushLag.record(Duration.ofMillis(now - oldest));
+        flushDuration.record(Duration.ofNanos(System.nanoTime() - started));
+        log.debug("Driver write-behind flush: size={}, lagMs={}", batch.size(), now - oldest);
+        return true;
+    }
+
+    private record PendingDriver(String driverId, Double lat, Double lng, String status, String tier,
+            long dirtySince) {
+
+        /**
+         * Apply a newer change on top of this one, keeping the original dirty time
+         */
+        PendingDriver overlay(PendingDriver next) {
+            return new PendingDriver(driverId,
+                    next.lat() != null ? next.lat() : lat,
+                    next.lng() != null ? next.lng() : lng,
+                    next.status() != null ? next.status() : status,
+                    next.tier() != null ? next.tier() : tier,
+                    Math.min(dirtySince, next.dirtySince()));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.ridehailing.persistence;
+
+import com.ridehailing.model.RideStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Moves ride statuses from the old text column to the integer state column.
+ *
+ * Schema update adds Ride.state (defaulting to 0, requested) but leaves the old
+ * NOT NULL status column behind, which would reject every new insert. On startup,
+ * before the web server takes requests, this copies each ride's status into state
+ * and drops the old column and its index. A no-op once the column is gone.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RideStatusMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SqliteWriter sqliteWriter;
+    // Schema update runs while the factory is built, so it must exist first
+    private final EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void migrate() {
+        boolean legacy = jdbcTemplate.queryForList("SELECT name FROM pragma_table_info('Ride')", String.class)
+                .stream()
+                .anyMatch("status"::equalsIgnoreCase);
+        if (!legacy) {
+            return;
+        }
+
+        String cases = Arrays.stream(RideStatus.values())
+                .map(status -> "WHEN '" + status.value() + "' THEN " + status.code())
+                .collect(Collectors.joining(" "));
+        int[] migrated = new int[1];
+        sqliteWriter.executeWithoutResult(() -> {
+            migrated[0] = jdbcTemplate.update("UPDATE Ride SET state = CASE status " + cases + " ELSE state END");
+            jdbcTemplate.execute("DROP INDEX IF EXISTS idx_ride_status");
+            jdbcTemplate.execute("ALTER TABLE Ride DROP COLUMN status");
+        });
+        log.info("Migrated ride status to integer state column: rides={}", migrated[0]);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ridehailing.persistence;
+
+import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideTransition;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Applies ride state transitions as single conditional UPDATEs.
+ *
+ * Each transition is one {@code UPDATE Ride SET state = ... WHERE id = ? AND state IN (...)
+ * RETURNING *}: the guard comes from the RideTransition table, so an illegal or lost
+ * transition simply matches no row and nothing is written. The updated row comes back
+ * from the same statement instead of a find before and a merge after. Every transition
+ * bumps the ride's version, so readers can tell which of two results is newer.
+ *
+ * Must run inside a read-write transaction (a SqliteWriter command). The persistence
+ * context is flushed and cleared first so the returned Ride is read from the row and
+ * never from a stale managed copy.
+ */
+@Component
+@RequiredArgsConstructor
+public class RideTransitions {
+
+    private static final Map<RideTransition, String> SQL = new EnumMap<>(RideTransition.class);
+
+    static {
+        SQL.put(RideTransition.ACCEPT, sql(RideTransition.ACCEPT, "driver_id = :driverId, otp = :otp", ""));
+        SQL.put(RideTransition.START, sql(RideTransition.START, "started_at = :now, otp = NULL", " AND otp = :otp"));
+        SQL.put(RideTransition.PAUSE, sql(RideTransition.PAUSE, "paused_at = :now", ""));
+        SQL.put(RideTransition.RESUME, sql(RideTransition.RESUME, "paused_at = NULL", ""));
+        SQL.put(RideTransition.COMPLETE, sql(RideTransition.COMPLETE, "completed_at = :now", ""));
+        SQL.put(RideTransition.CANCEL, sql(RideTransition.CANCEL, null, ""));
+    }
+
+    private final EntityManager entityManager;
+
+    /**
+     * Assign a driver to a requested ride
+     */
+    public Optional<Ride> accept(String rideId, String driverId, String otp) {
+        Query query = query(RideTransition.ACCEPT, rideId);
+        query.setParameter("driverId", driverId);
+        query.setParameter("otp", otp);
+        return single(query);
+    }
+
+    /**
+     * Start an assigned ride if the rider's OTP matches; clears the OTP
+     */
+    public Optional<Ride> start(String rideId, String otp) {
+        Query query = query(RideTransition.START, rideId);
+        query.setParameter("now", LocalDateTime.now());
+        query.setParameter("otp", otp);
+        return single(query);
+    }
+
+    /**
+     * Apply PAUSE, RESUME, COMPLETE or CANCEL
+     *
+     * @return the updated ride, or empty if it does not exist or is not in a state the
+     *         transition allows
+     */
+    public Optional<Ride> apply(String rideId, RideTransition transition) {
+        if (transition == RideTransition.ACCEPT || transition == RideTransition.START) {
+            throw new IllegalArgumentException(transition + " needs its own parameters");
+        }
+        Query query = query(transition, rideId);
+        if (transition != RideTransition.RESUME && transition != RideTransition.CANCEL) {
+            query.setParameter("now", LocalDateTime.now());
+        }
+        return single(query);
+    }
+
+    private Query query(RideTransition transition, String rideId) {
+        entityManager.flush();
+        entityManager.clear();
+        return entityManager.createNativeQuery(SQL.get(transition), Ride.class)
+                .setParameter("rideId", rideId);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Optional<Ride> single(Query query) {
+        List<Ride> rows = query.getResultList();
+        return rows.isEmpty() ? Optional.empty() : Optional.of(rows.get(0));
+    }
+
+    private static String sql(RideTransition transition, String assignments, String extraGuard) {
+        String from = transition.from().stream()
+                .map(status -> String.valueOf(status.code()))
+                .collect(Collectors.joining(", "));
+        return "UPDATE Ride SET state = " + transition.to().code() + ", version = version + 1"
+                + (assignments != null ? ", " + assignments : "")
+                + " WHERE id = :rideId AND state IN (" + from + ")" + extraGuard
+                + " RETURNING *";
+    }
+}
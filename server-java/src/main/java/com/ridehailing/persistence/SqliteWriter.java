@@ -0,0 +1,243 @@
+package com.ridehailing.persistence;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer pipeline for SQLite.
+ *
+ * SQLite admits one writer at a time, so instead of letting request threads race for
+ * the write lock (and fail with SQLITE_BUSY) every write runs here: callers enqueue a
+ * command on a bounded queue and await its future, and one dedicated thread drains
+ * the queue and runs everything it collected within group-window-ms in a single
+ * transaction (group commit). Futures complete after the commit.
+ *
+ * If a group fails, it is rolled back and its commands are re-run one transaction
+ * each, so only the failing command sees the error. Commands must therefore touch
+ * nothing but the database: they can run twice.
+ */
+@Component
+@Slf4j
+public class SqliteWriter {
+
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<WriteCommand<?>> queue;
+    private final long groupWindowNanos;
+    private final int maxGroupSize;
+    private final long enqueueTimeoutMs;
+    private final long writeTimeoutMs;
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    private final DistributionSummary groupSize;
+    private final Timer commitDuration;
+    private final Timer queueWait;
+    private final Counter rejected;
+    private final Counter groupRetries;
+
+    public SqliteWriter(TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${ridehailing.sqlite.write-queue-capacity:10000}") int queueCapacity,
+            @Value("${ridehailing.sqlite.group-window-ms:2}") long groupWindowMs,
+            @Value("${ridehailing.sqlite.max-group-size:256}") int maxGroupSize,
+            @Value("${ridehailing.sqlite.enqueue-timeout-ms:1000}") long enqueueTimeoutMs,
+            @Value("${ridehailing.sqlite.write-timeout-ms:10000}") long writeTimeoutMs) {
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.groupWindowNanos = TimeUnit.MILLISECONDS.toNanos(groupWindowMs);
+        this.maxGroupSize = maxGroupSize;
+        this.enqueueTimeoutMs = enqueueTimeoutMs;
+        this.writeTimeoutMs = writeTimeoutMs;
+
+        this.groupSize = DistributionSummary.builder("ridehailing.sqlite.group.size")
+                .description("Write commands committed per transaction")
+                .register(meterRegistry);
+        this.commitDuration = Timer.builder("ridehailing.sqlite.group.commit")
+                .description("Time to run and commit one group of write commands")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWait = Timer.builder("ridehailing.sqlite.queue.wait")
+                .description("Time a write command waited for the writer thread")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ridehailing.sqlite.rejected")
+                .description("Write commands rejected because the queue stayed full")
+                .register(meterRegistry);
+        this.groupRetries = Counter.builder("ridehailing.sqlite.group.retries")
+                .description("Groups rolled back and re-run one command per transaction")
+                .register(meterRegistry);
+        Gauge.builder("ridehailing.sqlite.queue.depth", queue, BlockingQueue::size)
+                .description("Write commands waiting for the writer thread")
+                .register(meterRegistry);
+
+        this.writerThread = new Thread(this::run, "sqlite-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Enqueue a write command.
+     *
+     * @throws RejectedExecutionException if the queue stays full for enqueue-timeout-ms
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> command) {
+        WriteCommand<T> write = new WriteCommand<>(command, System.nanoTime(), new CompletableFuture<>());
+        try {
+            if (!running || !queue.offer(write, enqueueTimeoutMs, TimeUnit.MILLISECONDS)) {
+                rejected.increment();
+                throw new RejectedExecutionException("SQLite write queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while enqueueing a write", e);
+        }
+        return write.future();
+    }
+
+    /**
+     * Run a write command through the writer and wait for its commit.
+     *
+     * Runs inline when called from the writer thread, or from a thread already inside
+     * a read-write transaction: that transaction holds the single write connection, so
+     * waiting on the writer would deadlock.
+     */
+    public <T> T execute(Supplier<T> command) {
+        if (Thread.currentThread() == writerThread
+                || (TransactionSynchronizationManager.isActualTransactionActive()
+                        && !TransactionSynchronizationManager.isCurrentTransactionReadOnly())) {
+            return command.get();
+        }
+        try {
+            return submit(command).get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("SQLite write failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("SQLite write timed out after " + writeTimeoutMs + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a write", e);
+        }
+    }
+
+    public void executeWithoutResult(Runnable command) {
+        execute(() -> {
+            command.run();
+            return null;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        if (!queue.isEmpty()) {
+            log.warn("SQLite writer stopped with unwritten commands: pending={}", queue.size());
+        }
+    }
+
+    private void run() {
+        List<WriteCommand<?>> group = new ArrayList<>(maxGroupSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                WriteCommand<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + groupWindowNanos;
+                while (group.size() < maxGroupSize) {
+                    long remaining = deadline - System.nanoTime();
+                    WriteCommand<?> next = remaining > 0
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // commit() completes every future itself; never let the writer die
+                log.error("SQLite writer loop error", e);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void commit(List<WriteCommand<?>> group) {
+        long started = System.nanoTime();
+        for (WriteCommand<?> command : group) {
+            queueWait.record(started - command.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+
+        Object[] results = new Object[group.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (int i = 0; i < group.size(); i++) {
+                    results[i] = group.get(i).command().get();
+                }
+            });
+        } catch (Exception e) {
+            if (group.size() == 1) {
+                group.get(0).future().completeExceptionally(e);
+                return;
+            }
+            groupRetries.increment();
+            log.debug("SQLite write group failed, retrying one by one: size={}, error={}",
+                    group.size(), e.getMessage());
+            group.forEach(this::commitAlone);
+            return;
+        } finally {
+            commitDuration.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+
+        groupSize.record(group.size());
+        for (int i = 0; i < group.size(); i++) {
+            complete(group.get(i), results[i]);
+        }
+    }
+
+    private <T> void commitAlone(WriteCommand<T> command) {
+        try {
+            command.future().complete(transactionTemplate.execute(status -> command.command().get()));
+            groupSize.record(1);
+        } catch (Exception e) {
+            command.future().completeExceptionally(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void complete(WriteCommand<T> command, Object result) {
+        command.future().complete((T) result);
+    }
+
+    private record WriteCommand<T>(Supplier<T> command, long enqueuedAt, CompletableFuture<T> future) {
+    }
+}
@@ -0,0 +1,172 @@
+package com.ridehailing.pricing;
+
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.persistence.DriverWriteBehindBuffer;
+import com.ridehailing.repository.DriverRepository;
+import com.ridehailing.repository.RideRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * City-wide pending ride and available driver counters.
+ *
+ * Lifecycle events only add to a local LongAdder, which never blocks or touches the
+ * network. A background flush pushes the accumulated delta of each counter to Redis
+ * with one pipelined INCRBY. Because events can be lost or double-counted (a node
+ * crashing mid-flow, repeated online/offline calls), a slower reconciliation
+ * compares the Redis values against the database and corrects them with an INCRBY
+ * of the difference, which stays correct while other nodes keep flushing.
+ */
+@Component
+@Slf4j
+public class DemandCounters {
+
+    public static final String PENDING_RIDES_KEY = "pending_rides_count";
+    public static final String AVAILABLE_DRIVERS_KEY = "available_drivers_count";
+
+    private final StringRedisTemplate redisTemplate;
+    private final RideRepository rideRepository;
+    private final DriverRepository driverRepository;
+    private final DriverWriteBehindBuffer driverWriteBehindBuffer;
+
+    private final DeltaCounter pendingRides;
+    private final DeltaCounter availableDrivers;
+    private final Counter flushErrors;
+    private final Timer flushLatency;
+    private final Timer reconcileLatency;
+
+    public DemandCounters(StringRedisTemplate redisTemplate,
+            RideRepository rideRepository,
+            DriverRepository driverRepository,
+            DriverWriteBehindBuffer driverWriteBehindBuffer,
+            MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.rideRepository = rideRepository;
+        this.driverRepository = driverRepository;
+        this.driverWriteBehindBuffer = driverWriteBehindBuffer;
+
+        this.pendingRides = new DeltaCounter(PENDING_RIDES_KEY);
+        this.availableDrivers = new DeltaCounter(AVAILABLE_DRIVERS_KEY);
+        this.flushErrors = Counter.builder("ridehailing.demand.flush.errors")
+                .description("Failed flushes of demand counter deltas to Redis")
+                .register(meterRegistry);
+        this.flushLatency = redisTimer(meterRegistry, "demand.flush");
+        this.reconcileLatency = redisTimer(meterRegistry, "demand.reconcile");
+        for (DeltaCounter counter : new DeltaCounter[] { pendingRides, availableDrivers }) {
+            Gauge.builder("ridehailing.demand.drift", counter.lastDrift, AtomicLong::get)
+                    .description("Redis value minus database truth at the last reconciliation")
+                    .tag("counter", counter.key)
+                    .register(meterRegistry);
+            Gauge.builder("ridehailing.demand.unflushed", counter, DeltaCounter::unflushed)
+                    .description("Local delta not yet pushed to Redis")
+                    .tag("counter", counter.key)
+                    .register(meterRegistry);
+        }
+    }
+
+    private static Timer redisTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("ridehailing.redis.latency")
+                .description("Round trip to Redis")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void addPendingRides(long delta) {
+        pendingRides.total.add(delta);
+    }
+
+    public void addAvailableDrivers(long delta) {
+        availableDrivers.total.add(delta);
+    }
+
+    /**
+     * Push local deltas to Redis. A failed flush keeps the delta for the next one.
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.demand.flush-interval-ms:1000}")
+    public void flush() {
+        long rides = pendingRides.unflushed();
+        long drivers = availableDrivers.unflushed();
+        if (rides == 0 && drivers == 0) {
+            return;
+        }
+        try {
+            flushLatency.record(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                if (rides != 0) {
+                    redis.incrBy(PENDING_RIDES_KEY, rides);
+                }
+                if (drivers != 0) {
+                    redis.incrBy(AVAILABLE_DRIVERS_KEY, drivers);
+                }
+                return null;
+            }));
+            pendingRides.flushed += rides;
+            availableDrivers.flushed += drivers;
+        } catch (Exception e) {
+            flushErrors.increment();
+            log.warn("Demand counter flush failed, keeping deltas: rides={}, drivers={}, error={}",
+                    rides, drivers, e.getMessage());
+        }
+    }
+
+    /**
+     * Correct the Redis counters against the database and record the drift
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.demand.reconcile-interval-ms:60000}",
+            initialDelayString = "${ridehailing.demand.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        try {
+            // Driver status reaches the database through the write-behind buffer
+            driverWriteBehindBuffer.flush();
+            flush();
+
+            reconcile(pendingRides, rideRepository.countByStatus(RideStatus.REQUESTED));
+            reconcile(availableDrivers, driverRepository.countByStatus("online"));
+        } catch (Exception e) {
+            log.warn("Demand counter reconciliation failed: {}", e.getMessage());
+        }
+    }
+
+    private void reconcile(DeltaCounter counter, long truth) {
+        String current = reconcileLatency.record(() -> redisTemplate.opsForValue().get(counter.key));
+        long observed = current != null ? Long.parseLong(current) : 0;
+        long drift = observed - truth;
+        counter.lastDrift.set(drift);
+        if (drift != 0) {
+            redisTemplate.opsForValue().increment(counter.key, -drift);
+            log.info("Demand counter corrected: key={}, redis={}, database={}", counter.key, observed, truth);
+        }
+    }
+
+    /**
+     * Running total of local events and the part of it already in Redis. Only the
+     * scheduler thread moves {@code flushed}; events added while a flush is in
+     * flight are picked up by the next one.
+     */
+    private static final class DeltaCounter {
+        private final String key;
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong lastDrift = new AtomicLong();
+        private volatile long flushed;
+
+        private DeltaCounter(String key) {
+            this.key = key;
+        }
+
+        private long unflushed() {
+            return total.sum() - flushed;
+        }
+    }
+}
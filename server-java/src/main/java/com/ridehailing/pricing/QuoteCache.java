@@ -0,0 +1,105 @@
+package com.ridehailing.pricing;
+
+import com.ridehailing.dto.FareBreakdown;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bounded in-memory store of fare quotes.
+ *
+ * Every quote lives for the same TTL, so insertion order is also expiry order: a
+ * FIFO of quote IDs lets both the size bound and the expiry sweep evict from the
+ * head without scanning.
+ */
+@Component
+@Slf4j
+public class QuoteCache {
+
+    private final long ttlMillis;
+    private final int maxSize;
+
+    private final ConcurrentHashMap<String, FareQuote> quotes = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> order = new ConcurrentLinkedQueue<>();
+
+    public QuoteCache(MeterRegistry meterRegistry,
+            @Value("${ridehailing.quotes.ttl-seconds:120}") long ttlSeconds,
+            @Value("${ridehailing.quotes.max-size:100000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000L;
+        this.maxSize = maxSize;
+        Gauge.builder("ridehailing.quotes.cached", quotes, ConcurrentHashMap::size)
+                .description("Fare quotes held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Store a new quote and return it with its ID and expiry filled in
+     */
+    public FareQuote put(double pickupLat, double pickupLng, double destLat, double destLng,
+            double distance, Map<String, FareBreakdown> fares) {
+        FareQuote quote = new FareQuote(UUID.randomUUID().toString(), pickupLat, pickupLng, destLat, destLng,
+                distance, Map.copyOf(fares), System.currentTimeMillis() + ttlMillis);
+        quotes.put(quote.id(), quote);
+        order.add(quote.id());
+
+        while (quotes.size() > maxSize) {
+            String oldest = order.poll();
+            if (oldest == null) {
+                break;
+            }
+            quotes.remove(oldest);
+        }
+        return quote;
+    }
+
+    /**
+     * Remove and return a quote, or null if it is unknown or expired.
+     * A quote can be booked once.
+     */
+    public FareQuote take(String quoteId) {
+        FareQuote quote = quotes.remove(quoteId);
+        if (quote == null || quote.expiresAt() < System.currentTimeMillis()) {
+            return null;
+        }
+        return quote;
+    }
+
+    public int size() {
+        return quotes.size();
+    }
+
+    /**
+     * Evict expired quotes from the head of the FIFO
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.quotes.sweep-interval-ms:10000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        int evicted = 0;
+        String head;
+        while ((head = order.peek()) != null) {
+            FareQuote quote = quotes.get(head);
+            if (quote != null && quote.expiresAt() >= now) {
+                break;
+            }
+            order.poll();
+            if (quote != null && quotes.remove(head, quote)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted expired fare quotes: evicted={}, remaining={}", evicted, quotes.size());
+        }
+    }
+
+    public record FareQuote(String id, double pickupLat, double pickupLng, double destLat, double destLng,
+            double distance, Map<String, FareBreakdown> fares, long expiresAt) {
+    }
+}
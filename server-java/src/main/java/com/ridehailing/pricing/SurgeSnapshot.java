@@ -0,0 +1,71 @@
+package com.ridehailing.pricing;
+
+import com.ridehailing.geo.GeoGrid;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable surge factors for every zone with nearby demand or supply, per tier.
+ * Zones missing from the snapshot have no load and price at 1.0.
+ */
+public final class SurgeSnapshot {
+
+    private static final double[] NO_SURGE = new double[ZoneDemandTracker.TIERS.size()];
+
+    static {
+        Arrays.fill(NO_SURGE, 1.0);
+    }
+
+    private final GeoGrid grid;
+    private final Map<Long, double[]> factors;
+    private final long computedAt;
+
+    public SurgeSnapshot(GeoGrid grid, Map<Long, double[]> factors, long computedAt) {
+        this.grid = grid;
+        this.factors = Map.copyOf(factors);
+        this.computedAt = computedAt;
+    }
+
+    public static SurgeSnapshot empty(GeoGrid grid) {
+        return new SurgeSnapshot(grid, Map.of(), System.currentTimeMillis());
+    }
+
+    /**
+     * Surge factor for a pickup point and tier
+     */
+    public double factor(double lat, double lng, String tier) {
+        return factorsFor(grid.cellOf(lat, lng))[ZoneDemandTracker.tierIndex(tier)];
+    }
+
+    /**
+     * Surge factors for every tier in the zone of a point, keyed by tier name
+     */
+    public Map<String, Double> factorsByTier(double lat, double lng) {
+        double[] zone = factorsFor(grid.cellOf(lat, lng));
+        return Map.of(
+                ZoneDemandTracker.TIERS.get(0), zone[0],
+                ZoneDemandTracker.TIERS.get(1), zone[1],
+                ZoneDemandTracker.TIERS.get(2), zone[2]);
+    }
+
+    public String zoneId(double lat, double lng) {
+        return GeoGrid.cellId(grid.cellOf(lat, lng));
+    }
+
+    public long getComputedAt() {
+        return computedAt;
+    }
+
+    public long ageMillis() {
+        return System.currentTimeMillis() - computedAt;
+    }
+
+    public int zoneCount() {
+        return factors.size();
+    }
+
+    private double[] factorsFor(long zoneKey) {
+        return factors.getOrDefault(zoneKey, NO_SURGE);
+    }
+}
@@ -0,0 +1,275 @@
+package com.ridehailing.pricing;
+
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.geo.DriverGridIndex.IndexedDriver;
+import com.ridehailing.geo.GeoGrid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-zone supply and demand counters for surge pricing.
+ *
+ * The city is split into square zones. Demand is the number of ride requests per
+ * zone and tier over a sliding window kept as a ring of time buckets; a request
+ * cancelled before assignment is taken back out. Supply is the number of online
+ * drivers per zone and tier, fed by the driver grid index, so acceptance (driver
+ * goes busy), status changes and zone crossings all move it. Every update is O(1)
+ * under one of a fixed set of striped locks, so events for different zones rarely
+ * contend.
+ */
+@Component
+@Slf4j
+public class ZoneDemandTracker implements DriverGridIndex.Listener {
+
+    public static final List<String> TIERS = List.of("economy", "premium", "luxury");
+
+    private static final int STRIPES = 64;
+
+    private final GeoGrid grid;
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final double neighbourWeight;
+
+    private final ConcurrentHashMap<Long, Zone> zones = new ConcurrentHashMap<>();
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    public ZoneDemandTracker(DriverGridIndex driverGridIndex,
+            @Value("${ridehailing.surge.zone-size-deg:0.02}") double zoneSizeDeg,
+            @Value("${ridehailing.surge.window-seconds:300}") long windowSeconds,
+            @Value("${ridehailing.surge.window-buckets:10}") int bucketCount,
+            @Value("${ridehailing.surge.neighbour-weight:0.25}") double neighbourWeight) {
+        this.grid = new GeoGrid(zoneSizeDeg);
+        this.bucketCount = bucketCount;
+        this.bucketMillis = Math.max(1, windowSeconds * 1000L / bucketCount);
+        this.neighbourWeight = neighbourWeight;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        driverGridIndex.addListener(this);
+    }
+
+    public GeoGrid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Count a new ride request in its pickup zone
+     */
+    public void recordRequest(double lat, double lng, String tier, long createdAtMillis) {
+        addDemand(grid.cellOf(lat, lng), tierIndex(tier), createdAtMillis / bucketMillis, 1);
+    }
+
+    /**
+     * Take back a request that was cancelled before any driver accepted it.
+     * Requests that already left the window are ignored.
+     */
+    public void recordCancellation(double lat, double lng, String tier, long createdAtMillis) {
+        addDemand(grid.cellOf(lat, lng), tierIndex(tier), createdAtMillis / bucketMillis, -1);
+    }
+
+    @Override
+    public void onlineDriverChanged(IndexedDriver before, IndexedDriver after) {
+        long fromZone = before != null ? grid.cellOf(before.lat(), before.lng()) : 0;
+        long toZone = after != null ? grid.cellOf(after.lat(), after.lng()) : 0;
+        int fromTier = before != null ? tierIndex(before.tier()) : -1;
+        int toTier = after != null ? tierIndex(after.tier()) : -1;
+
+        if (before != null && after != null && fromZone == toZone && fromTier == toTier) {
+            return;
+        }
+        if (before != null) {
+            addSupply(fromZone, fromTier, -1);
+        }
+        if (after != null) {
+            addSupply(toZone, toTier, 1);
+        }
+    }
+
+    /**
+     * Demand and supply around a point for one tier. The pickup zone counts fully
+     * and each of its eight neighbours counts with the neighbour weight, so surge
+     * does not jump at zone edges.
+     */
+    public ZoneLoad load(double lat, double lng, String tier) {
+        return load(grid.cellOf(lat, lng), tierIndex(tier), currentEpoch());
+    }
+
+    /**
+     * Zones whose smoothed load can be non-zero: every zone holding counters and
+     * its eight neighbours
+     */
+    public Set<Long> zonesInReach() {
+        Set<Long> reach = new HashSet<>(zones.size() * 9);
+        for (Long key : zones.keySet()) {
+            int row = GeoGrid.rowOf(key);
+            int col = GeoGrid.colOf(key);
+            for (int dr = -1; dr <= 1; dr++) {
+                for (int dc = -1; dc <= 1; dc++) {
+                    reach.add(GeoGrid.key(row + dr, col + dc));
+                }
+            }
+        }
+        return reach;
+    }
+
+    /**
+     * Smoothed load of one zone for the tier at the given index, as of a window epoch
+     */
+    public ZoneLoad load(long zoneKey, int tier, long epoch) {
+        int centerRow = GeoGrid.rowOf(zoneKey);
+        int centerCol = GeoGrid.colOf(zoneKey);
+        double demand = 0;
+        double supply = 0;
+        for (int dr = -1; dr <= 1; dr++) {
+            for (int dc = -1; dc <= 1; dc++) {
+                double weight = dr == 0 && dc == 0 ? 1.0 : neighbourWeight;
+                long key = GeoGrid.key(centerRow + dr, centerCol + dc);
+                ReentrantLock lock = stripe(key);
+                lock.lock();
+                try {
+                    Zone zone = zones.get(key);
+                    if (zone != null) {
+                        demand += weight * zone.demand(tier, epoch, bucketCount);
+                        supply += weight * zone.supply[tier];
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        return new ZoneLoad(demand, supply);
+    }
+
+    /**
+     * Current sliding-window epoch, for reading many zones against the same window
+     */
+    public long currentEpoch() {
+        return System.currentTimeMillis() / bucketMillis;
+    }
+
+    public static int tierIndex(String tier) {
+        int index = tier != null ? TIERS.indexOf(tier) : -1;
+        return index >= 0 ? index : 0;
+    }
+
+    /**
+     * Drop zones with no drivers and no requests left in the window
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.surge.purge-interval-ms:60000}")
+    public void purgeIdleZones() {
+        long epoch = currentEpoch();
+        int removed = 0;
+        for (Long key : zones.keySet()) {
+            ReentrantLock lock = stripe(key);
+            lock.lock();
+            try {
+                Zone zone = zones.get(key);
+                if (zone != null && zone.isIdle(epoch, bucketCount)) {
+                    zones.remove(key);
+                    removed++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (removed > 0) {
+            log.debug("Purged idle surge zones: removed={}, remaining={}", removed, zones.size());
+        }
+    }
+
+    private void addDemand(long zoneKey, int tier, long epoch, int delta) {
+        ReentrantLock lock = stripe(zoneKey);
+        lock.lock();
+        try {
+            Zone zone = delta > 0 ? zones.computeIfAbsent(zoneKey, key -> new Zone(bucketCount)) : zones.get(zoneKey);
+            if (zone != null) {
+                zone.addDemand(tier, epoch, delta, bucketCount);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void addSupply(long zoneKey, int tier, int delta) {
+        ReentrantLock lock = stripe(zoneKey);
+        lock.lock();
+        try {
+            Zone zone = zones.computeIfAbsent(zoneKey, key -> new Zone(bucketCount));
+            zone.supply[tier] = Math.max(0, zone.supply[tier] + delta);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ReentrantLock stripe(long zoneKey) {
+        long mixed = zoneKey * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (mixed >>> 58) & (STRIPES - 1)];
+    }
+
+    /**
+     * Smoothed demand (requests in the window) and supply (online drivers)
+     */
+    public record ZoneLoad(double demand, double supply) {
+    }
+
+    /**
+     * Counters for one zone. Only touched under the zone's stripe lock.
+     */
+    private static final class Zone {
+        private final long[][] requests = new long[TIERS.size()][];
+        private final long[] bucketEpoch;
+        private final int[] supply = new int[TIERS.size()];
+
+        private Zone(int bucketCount) {
+            for (int t = 0; t < requests.length; t++) {
+                requests[t] = new long[bucketCount];
+            }
+            bucketEpoch = new long[bucketCount];
+            Arrays.fill(bucketEpoch, Long.MIN_VALUE);
+        }
+
+        private void addDemand(int tier, long epoch, int delta, int bucketCount) {
+            int slot = (int) Math.floorMod(epoch, (long) bucketCount);
+            if (bucketEpoch[slot] != epoch) {
+                if (delta < 0 || bucketEpoch[slot] > epoch) {
+                    // Bucket already recycled, the event is outside the window
+                    return;
+                }
+                for (long[] tierBuckets : requests) {
+                    tierBuckets[slot] = 0;
+                }
+                bucketEpoch[slot] = epoch;
+            }
+            requests[tier][slot] = Math.max(0, requests[tier][slot] + delta);
+        }
+
+        private long demand(int tier, long epoch, int bucketCount) {
+            long oldest = epoch - bucketCount + 1;
+            long total = 0;
+            for (int slot = 0; slot < bucketCount; slot++) {
+                if (bucketEpoch[slot] >= oldest && bucketEpoch[slot] <= epoch) {
+                    total += requests[tier][slot];
+                }
+            }
+            return total;
+        }
+
+        private boolean isIdle(long epoch, int bucketCount) {
+            for (int t = 0; t < supply.length; t++) {
+                if (supply[t] > 0 || demand(t, epoch, bucketCount) > 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ridehailing.readmodel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, immutable view of a driver's profile.
+ *
+ * Name, tier and ratings come from one primary-key projection of the Driver row
+ * (DriverRepository.findProfileById). Status and position are overlaid from the
+ * in-memory index when the driver is live there, since the row only catches up
+ * with pings at the next write-behind flush.
+ */
+public record DriverProfileView(
+        String id,
+        String name,
+        String status,
+        String tier,
+        Double lat,
+        Double lng,
+        Double averageRating,
+        Integer totalRatings,
+        LocalDateTime createdAt) {
+
+    public DriverProfileView withLiveState(String status, double lat, double lng) {
+        return new DriverProfileView(id, name, status != null ? status : this.status, tier, lat, lng,
+                averageRating, totalRatings, createdAt);
+    }
+}
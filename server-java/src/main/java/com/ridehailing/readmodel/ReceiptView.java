@@ -0,0 +1,21 @@
+package com.ridehailing.readmodel;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, immutable view of a receipt.
+ *
+ * Projected straight from the Receipt row by ride ID (ReceiptRepository.findViewByRideId,
+ * on idx_receipt_ride) without loading the ride or its driver.
+ */
+public record ReceiptView(
+        String id,
+        String rideId,
+        Double baseFare,
+        Double distanceFare,
+        Double surgeFare,
+        Double totalFare,
+        String paymentStatus,
+        String transactionId,
+        LocalDateTime createdAt) {
+}
@@ -0,0 +1,78 @@
+package com.ridehailing.readmodel;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.ridehailing.model.Driver;
+import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Flat, immutable view of a ride with a summary of its driver.
+ *
+ * Serializes to the same fields as the Ride entity, minus the driver's creation time,
+ * so clients see no difference. Built from the ride RideService just wrote, or by one
+ * JPQL projection over Ride left-joined to Driver (RideRepository.findViewById).
+ * The version is not serialized; it orders cache writes.
+ */
+public record RideView(
+        String id,
+        String riderId,
+        DriverSummary driver,
+        RideStatus status,
+        String tier,
+        String paymentMethod,
+        Double pickupLat,
+        Double pickupLng,
+        Double destLat,
+        Double destLng,
+        Double price,
+        Double surgeFactor,
+        Double distance,
+        String otp,
+        LocalDateTime createdAt,
+        LocalDateTime startedAt,
+        LocalDateTime pausedAt,
+        LocalDateTime completedAt,
+        @JsonIgnore long version) {
+
+    /**
+     * Driver fields shown with a ride
+     */
+    public record DriverSummary(String id, String name, String status, String tier, Double lat, Double lng,
+            Double averageRating, Integer totalRatings) {
+    }
+
+    /**
+     * Flat constructor for the JPQL projection; driver columns are null when unassigned
+     */
+    public RideView(String id, String riderId, RideStatus status, String tier, String paymentMethod,
+            Double pickupLat, Double pickupLng, Double destLat, Double destLng,
+            Double price, Double surgeFactor, Double distance, String otp,
+            LocalDateTime createdAt, LocalDateTime startedAt, LocalDateTime pausedAt, LocalDateTime completedAt,
+            Long version, String driverId, String driverName, String driverStatus, String driverTier,
+            Double driverLat, Double driverLng, Double driverAverageRating, Integer driverTotalRatings) {
+        this(id, riderId,
+                driverId != null
+                        ? new DriverSummary(driverId, driverName, driverStatus, driverTier, driverLat, driverLng,
+                                driverAverageRating, driverTotalRatings)
+                        : null,
+                status, tier, paymentMethod, pickupLat, pickupLng, destLat, destLng,
+                price, surgeFactor, distance, otp, createdAt, startedAt, pausedAt, completedAt,
+                version != null ? version : 0L);
+    }
+
+    public static RideView of(Ride ride) {
+        Driver driver = ride.getDriver();
+        return new RideView(ride.getId(), ride.getRiderId(),
+                driver != null
+                        ? new DriverSummary(driver.getId(), driver.getName(), driver.getStatus(), driver.getTier(),
+                                driver.getLat(), driver.getLng(), driver.getAverageRating(), driver.getTotalRatings())
+                        : null,
+                ride.getStatus(), ride.getTier(), ride.getPaymentMethod(),
+                ride.getPickupLat(), ride.getPickupLng(), ride.getDestLat(), ride.getDestLng(),
+                ride.getPrice(), ride.getSurgeFactor(), ride.getDistance(), ride.getOtp(),
+                ride.getCreatedAt(), ride.getStartedAt(), ride.getPausedAt(), ride.getCompletedAt(),
+                ride.getVersion() != null ? ride.getVersion() : 0L);
+    }
+}
@@ -1,12 +1,47 @@
 package com.ridehailing.repository;
 
 import com.ridehailing.model.Driver;
+import com.ridehailing.readmodel.DriverProfileView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface DriverRepository extends JpaRepository<Driver, String> {
     List<Driver> findByStatus(String status);
+
+    long countByStatus(String status);
+
+    @Query("SELECT new com.ridehailing.readmodel.DriverProfileView(d.id, d.name, d.status, d.tier, d.lat, d.lng, "
+            + "d.averageRating, d.totalRatings, d.createdAt) FROM Driver d WHERE d.id = :id")
+    Optional<DriverProfileView> findProfileById(@Param("id") String id);
+
+    /**
+     * Set a driver's status in one statement, creating the driver if it is unknown
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO Driver (id, name, status, tier, average_rating, total_ratings, created_at) "
+            + "VALUES (:id, :name, :status, 'economy', 0.0, 0, :createdAt) "
+            + "ON CONFLICT(id) DO UPDATE SET status = excluded.status", nativeQuery = true)
+    int upsertStatus(@Param("id") String id, @Param("name") String name, @Param("status") String status,
+            @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Put a driver back online unless another ride in one of the given states still
+     * holds them. Returns 0 if the driver is unknown or still on a ride.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Driver SET status = 'online' WHERE id = :id AND NOT EXISTS "
+            + "(SELECT 1 FROM Ride WHERE driver_id = :id AND state IN (:activeStates))", nativeQuery = true)
+    int releaseUnlessActive(@Param("id") String id, @Param("activeStates") List<Integer> activeStates);
 }
@@ -0,0 +1,44 @@
+package com.ridehailing.repository;
+
+import com.ridehailing.model.OutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+@Transactional(readOnly = true)
+public interface OutboxRepository extends JpaRepository<OutboxEntry, String> {
+
+    /**
+     * Entries of a type that are due and have attempts left, oldest first
+     */
+    @Query("SELECT e FROM OutboxEntry e WHERE e.type = :type AND e.nextAttemptAt <= :now "
+            + "AND e.attempts < :maxAttempts ORDER BY e.createdAt")
+    List<OutboxEntry> findDue(@Param("type") String type, @Param("now") LocalDateTime now,
+            @Param("maxAttempts") int maxAttempts, Pageable page);
+
+    Optional<OutboxEntry> findFirstByTypeAndRideId(String type, String rideId);
+
+    /**
+     * Claim an entry by deleting it. Returns 0 if another run already finished it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM Outbox WHERE id = :id", nativeQuery = true)
+    int deleteEntry(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE Outbox SET attempts = attempts + 1, last_error = :error, next_attempt_at = :nextAttemptAt "
+            + "WHERE id = :id", nativeQuery = true)
+    int recordFailure(@Param("id") String id, @Param("error") String error,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
+}
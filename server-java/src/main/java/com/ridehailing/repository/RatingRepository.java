@@ -3,11 +3,13 @@ package com.ridehailing.repository;
 import com.ridehailing.model.Rating;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface RatingRepository extends JpaRepository<Rating, String> {
 
     List<Rating> findByDriverId(String driverId);
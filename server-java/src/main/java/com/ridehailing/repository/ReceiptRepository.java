@@ -1,13 +1,26 @@
 package com.ridehailing.repository;
 
 import com.ridehailing.model.Receipt;
+import com.ridehailing.readmodel.ReceiptView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface ReceiptRepository extends JpaRepository<Receipt, String> {
     // Use ride.id to navigate the relationship
     Optional<Receipt> findByRide_Id(String rideId);
+
+    /**
+     * Receipt columns only; the ride is referenced by its foreign key, not joined
+     */
+    @Query("SELECT new com.ridehailing.readmodel.ReceiptView(rc.id, rc.ride.id, rc.baseFare, rc.distanceFare, "
+            + "rc.surgeFare, rc.totalFare, rc.paymentStatus, rc.transactionId, rc.createdAt) "
+            + "FROM Receipt rc WHERE rc.ride.id = :rideId")
+    Optional<ReceiptView> findViewByRideId(@Param("rideId") String rideId);
 }
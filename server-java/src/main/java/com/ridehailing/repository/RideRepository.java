@@ -1,14 +1,39 @@
 package com.ridehailing.repository;
 
 import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.readmodel.RideView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface RideRepository extends JpaRepository<Ride, String> {
-    List<Ride> findByStatus(String status);
+    List<Ride> findByStatus(RideStatus status);
+
+    long countByStatus(RideStatus status);
 
     List<Ride> findByRiderId(String riderId);
+
+    /**
+     * Status alone, without loading the ride and its driver
+     */
+    @Query("SELECT r.status FROM Ride r WHERE r.id = :rideId")
+    Optional<RideStatus> findStatusById(@Param("rideId") String rideId);
+
+    /**
+     * Ride with its driver summary in one query, without building the entity graph
+     */
+    @Query("SELECT new com.ridehailing.readmodel.RideView(r.id, r.riderId, r.status, r.tier, r.paymentMethod, "
+            + "r.pickupLat, r.pickupLng, r.destLat, r.destLng, r.price, r.surgeFactor, r.distance, r.otp, "
+            + "r.createdAt, r.startedAt, r.pausedAt, r.completedAt, r.version, "
+            + "d.id, d.name, d.status, d.tier, d.lat, d.lng, d.averageRating, d.totalRatings) "
+            + "FROM Ride r LEFT JOIN r.driver d WHERE r.id = :rideId")
+    Optional<RideView> findViewById(@Param("rideId") String rideId);
 }
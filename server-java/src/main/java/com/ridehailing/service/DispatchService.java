@@ -0,0 +1,224 @@
+package com.ridehailing.service;
+
+import com.ridehailing.dto.NearbyDriver;
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.model.Ride;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Targeted ride dispatch.
+ *
+ * A new ride is offered to the K nearest online drivers of its tier through their
+ * user destinations. If nobody is found the search radius widens immediately; if
+ * nobody accepts before the offer times out, the next ring of drivers is tried.
+ *
+ * When every ring is used up the ride is either broadcast (broadcast-fallback) or
+ * searched again from the first ring after an exponential backoff, telling the rider
+ * no drivers were found yet. A ride still unaccepted after max-wait-ms is handed back
+ * as a {@link DispatchExhausted} event, and RideService cancels it. The event is
+ * published from its own thread: the cancel waits on the SQLite writer, and the
+ * timer thread must keep firing every other ride's rounds meanwhile.
+ */
+@Service
+@Slf4j
+public class DispatchService {
+
+    private final DriverGridIndex driverGridIndex;
+    private final SocketService socketService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private final int offerSize;
+    private final double[] radiiKm;
+    private final long offerTimeoutMs;
+    private final boolean broadcastFallback;
+    private final long retryBackoffMs;
+    private final long retryMaxBackoffMs;
+    private final long maxWaitMs;
+
+    private final ConcurrentHashMap<String, DispatchState> active = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dispatch-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService expiries = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dispatch-expiries");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public DispatchService(DriverGridIndex driverGridIndex,
+            SocketService socketService,
+            ApplicationEventPublisher applicationEventPublisher,
+            @Value("${ridehailing.dispatch.offer-size:5}") int offerSize,
+            @Value("${ridehailing.dispatch.radii-km:2,5,10}") double[] radiiKm,
+            @Value("${ridehailing.dispatch.offer-timeout-ms:15000}") long offerTimeoutMs,
+            @Value("${ridehailing.dispatch.broadcast-fallback:false}") boolean broadcastFallback,
+            @Value("${ridehailing.dispatch.retry-backoff-ms:5000}") long retryBackoffMs,
+            @Value("${ridehailing.dispatch.retry-max-backoff-ms:60000}") long retryMaxBackoffMs,
+            @Value("${ridehailing.dispatch.max-wait-ms:300000}") long maxWaitMs) {
+        this.driverGridIndex = driverGridIndex;
+        this.socketService = socketService;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.offerSize = offerSize;
+        this.radiiKm = radiiKm;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.broadcastFallback = broadcastFallback;
+        this.retryBackoffMs = retryBackoffMs;
+        this.retryMaxBackoffMs = retryMaxBackoffMs;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    /**
+     * A ride nobody accepted within max-wait-ms. No more rounds are scheduled; the
+     * listener must {@link #close} it.
+     */
+    public record DispatchExhausted(String rideId, int offered) {
+    }
+
+    /**
+     * Start dispatching a newly requested ride
+     */
+    public void dispatch(Ride ride) {
+        DispatchState state = new DispatchState(ride);
+        active.put(ride.getId(), state);
+        offerNextRound(state);
+    }
+
+    /**
+     * Stop dispatching a ride that was accepted or cancelled and withdraw the
+     * outstanding offers from every other driver.
+     */
+    public void close(String rideId, String acceptedDriverId) {
+        DispatchState state = active.remove(rideId);
+        if (state == null) {
+            return;
+        }
+        state.lock.lock();
+        try {
+            if (state.timeout != null) {
+                state.timeout.cancel(false);
+            }
+            for (String driverId : state.offered) {
+                if (!driverId.equals(acceptedDriverId)) {
+                    socketService.sendRideOfferWithdrawn(driverId, rideId);
+                }
+            }
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    public int activeCount() {
+        return active.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timeouts.shutdownNow();
+        expiries.shutdownNow();
+    }
+
+    private void offerNextRound(DispatchState state) {
+        DispatchExhausted exhausted = null;
+        state.lock.lock();
+        try {
+            if (active.get(state.ride.getId()) != state) {
+                return;
+            }
+
+            // Widen ring by ring until at least one new driver is found
+            while (state.round < radiiKm.length) {
+                double radiusKm = radiiKm[state.round++];
+                List<NearbyDriver> candidates = driverGridIndex.findNearest(
+                        state.ride.getPickupLat(), state.ride.getPickupLng(),
+                        offerSize + state.offered.size(), radiusKm, state.ride.getTier());
+
+                int sent = 0;
+                for (NearbyDriver candidate : candidates) {
+                    if (sent == offerSize) {
+                        break;
+                    }
+                    if (state.offered.add(candidate.getDriverId())) {
+                        socketService.sendRideOffer(candidate.getDriverId(), state.ride);
+                        sent++;
+                    }
+                }
+
+                if (sent > 0) {
+                    log.info("Ride offered: rideId={}, round={}, radiusKm={}, drivers={}",
+                            state.ride.getId(), state.round, radiusKm, sent);
+                    state.timeout = timeouts.schedule(() -> offerNextRound(state), offerTimeoutMs,
+                            TimeUnit.MILLISECONDS);
+                    return;
+                }
+            }
+
+            if (broadcastFallback) {
+                active.remove(state.ride.getId(), state);
+                log.info("Dispatch exhausted, falling back to broadcast: rideId={}", state.ride.getId());
+                socketService.sendRideRequested(state.ride);
+                return;
+            }
+
+            // Search again from the first ring; drivers already offered keep their offer
+            long now = System.currentTimeMillis();
+            long backoffMs = Math.min(retryBackoffMs << Math.min(state.retries, 20), retryMaxBackoffMs);
+            if (now + backoffMs - state.startedAt <= maxWaitMs) {
+                state.retries++;
+                state.round = 0;
+                log.info("Dispatch exhausted, retrying: rideId={}, retry={}, backoffMs={}, offered={}",
+                        state.ride.getId(), state.retries, backoffMs, state.offered.size());
+                socketService.sendRideNoDrivers(state.ride, now + backoffMs);
+                state.timeout = timeouts.schedule(() -> offerNextRound(state), backoffMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+
+            // Left in active so the cancel's close() withdraws the outstanding offers
+            state.timeout = null;
+            log.warn("Dispatch gave up with no acceptance: rideId={}, retries={}, offered={}",
+                    state.ride.getId(), state.retries, state.offered.size());
+            exhausted = new DispatchExhausted(state.ride.getId(), state.offered.size());
+        } finally {
+            state.lock.unlock();
+        }
+        if (exhausted != null) {
+            // Off the timer thread: the listener cancels the ride (a blocking write) and closes the dispatch
+            DispatchExhausted event = exhausted;
+            expiries.execute(() -> applicationEventPublisher.publishEvent(event));
+        }
+    }
+
+    /**
+     * Guarded by a lock rather than a monitor: offers are sent while it is held, and
+     * blocking inside synchronized would pin a virtual thread's carrier.
+     */
+    private static class DispatchState {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Ride ride;
+        private final Set<String> offered = new HashSet<>();
+        private final long startedAt = System.currentTimeMillis();
+        private int round;
+        private int retries;
+        private ScheduledFuture<?> timeout;
+
+        private DispatchState(Ride ride) {
+            this.ride = ride;
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package com.ridehailing.service;
 
+import com.ridehailing.dto.LocationBatchResult;
+import com.ridehailing.dto.LocationPing;
+import com.ridehailing.dto.NearbyDriver;
+import com.ridehailing.geo.DriverGridIndex;
+import com.ridehailing.location.DriverLocation;
+import com.ridehailing.location.DriverLocationStore;
 import com.ridehailing.model.Driver;
+import com.ridehailing.persistence.DriverWriteBehindBuffer;
+import com.ridehailing.persistence.SqliteWriter;
+import com.ridehailing.readmodel.DriverProfileView;
 import com.ridehailing.repository.DriverRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @RequiredArgsConstructor
@@ -16,96 +34,264 @@ import java.time.LocalDateTime;
 public class DriverService {
 
     private final DriverRepository driverRepository;
-    private final StringRedisTemplate redisTemplate;
     private final SocketService socketService;
+    private final DriverGridIndex driverGridIndex;
+    private final DriverLocationStore driverLocationStore;
+    private final DriverWriteBehindBuffer driverWriteBehindBuffer;
+    private final MeterRegistry meterRegistry;
+    private final SqliteWriter sqliteWriter;
 
-    private static final String DRIVERS_LOCATION_KEY = "drivers:locations";
+    @Value("${ridehailing.geo.stale-after-seconds:300}")
+    private long staleAfterSeconds;
+
+    // Device timestamp of the newest batch ping applied per driver, used to reject out-of-order
+    // batch pings. Single pings carry no device time and are not compared against it.
+    private final ConcurrentHashMap<String, Long> lastBatchPingTs = new ConcurrentHashMap<>();
+
+    private Timer storeSave;
+    private Timer storeSaveAll;
+    private Timer storeUpdateStatus;
+    private Timer storeSearch;
+
+    @PostConstruct
+    public void registerMetrics() {
+        storeSave = redisTimer("location.save");
+        storeSaveAll = redisTimer("location.save_all");
+        storeUpdateStatus = redisTimer("location.update_status");
+        storeSearch = redisTimer("location.search");
+    }
+
+    private Timer redisTimer(String operation) {
+        return Timer.builder("ridehailing.redis.latency")
+                .description("Round trip to Redis")
+                .tag("operation", operation)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
 
     /**
-     * Update driver location - with Redis caching optimization
+     * Update driver location - Redis, in-memory index and write-behind DB persistence
      */
     public Driver updateLocation(String driverId, Double lat, Double lng) {
-        // Redis: Update Location (Fast Path)
+        return updateLocation(driverId, lat, lng, null);
+    }
+
+    /**
+     * Update driver location and (optionally) the tier the driver serves
+     */
+    public Driver updateLocation(String driverId, Double lat, Double lng, String tier) {
+        // In-memory spatial index for nearby-driver queries
+        DriverGridIndex.IndexedDriver previous = driverGridIndex.updateLocation(driverId, lat, lng, tier);
+        String resolvedTier = tier != null ? tier : previous != null ? previous.tier() : DriverGridIndex.DEFAULT_TIER;
+
+        // Redis: Update Location (Fast Path) - GEOADD + hash in one pipelined round trip.
+        // Pings never write status; the index's status is only used for the broadcast.
+        String status = previous != null ? previous.status() : DriverGridIndex.STATUS_ONLINE;
+        long now = System.currentTimeMillis();
         try {
-            // Store in Redis hash for quick lookups
-            String driverKey = "driver:" + driverId;
-            redisTemplate.opsForHash().put(driverKey, "name", "Driver " + driverId);
-            redisTemplate.opsForHash().put(driverKey, "status", "online");
-            redisTemplate.opsForHash().put(driverKey, "lat", lat.toString());
-            redisTemplate.opsForHash().put(driverKey, "lng", lng.toString());
-            redisTemplate.expire(driverKey, Duration.ofHours(1));
-
-            // Note: Redis GEO commands would require additional setup
-            // For simplicity, we skip GEOADD here but it can be added
+            DriverLocation location = new DriverLocation(driverId, lat, lng, null, resolvedTier, now);
+            storeSave.record(() -> driverLocationStore.save(location));
         } catch (Exception e) {
             log.warn("Redis update error", e);
         }
 
-        // Optimization: Only write to DB if driver is not "known" to be in DB
-        String knownKey = "driver:known:" + driverId;
-        boolean isKnown = false;
-        try {
-            isKnown = Boolean.TRUE.equals(redisTemplate.hasKey(knownKey));
-        } catch (Exception e) {
-            log.warn("Redis check error", e);
+        // DB: write-behind, flushed in batches off the request path
+        driverWriteBehindBuffer.record(driverId, lat, lng, tier);
+
+        Driver driver = Driver.builder()
+                .id(driverId)
+                .name("Driver " + driverId)
+                .lat(lat)
+                .lng(lng)
+                .status(status)
+                .tier(resolvedTier)
+                .build();
+
+        // Broadcast to the driver's cell topic
+        socketService.sendDriverLocationUpdated(driver,
+                previous != null ? previous.lat() : null,
+                previous != null ? previous.lng() : null);
+
+        return driver;
+    }
+
+    /**
+     * Apply a batch of location pings from a fleet gateway.
+     * Pings are coalesced to the newest one per driver, pings older than the driver's
+     * last applied batch ping are rejected, and the survivors are written to the
+     * location store in one pipelined round trip and broadcast as one message per cell.
+     * A ping without a device timestamp is always applied (stamped with the receive
+     * time) and never advances the device clock other pings are compared with.
+     */
+    public LocationBatchResult updateLocations(List<LocationPing> pings) {
+        long receivedAt = System.currentTimeMillis();
+        int dropped = 0;
+        int coalesced = 0;
+
+        // Coalesce to the newest ping per driver; ties, and pings without a ts, go to the later record
+        Map<String, LocationPing> newest = new HashMap<>();
+        for (LocationPing ping : pings) {
+            if (!isValid(ping)) {
+                dropped++;
+                continue;
+            }
+            LocationPing current = newest.get(ping.getDriverId());
+            if (current == null || ping.getTs() == null || current.getTs() == null
+                    || ping.getTs() >= current.getTs()) {
+                newest.put(ping.getDriverId(), ping);
+            }
+            if (current != null) {
+                coalesced++;
+            }
         }
 
-        Driver driver;
-        if (!isKnown) {
-            // First time or cache expired - write to DB
-            driver = driverRepository.findById(driverId)
-                    .map(existing -> {
-                        existing.setLat(lat);
-                        existing.setLng(lng);
-                        existing.setStatus("online");
-                        return driverRepository.save(existing);
-                    })
-                    .orElseGet(() -> {
-                        Driver newDriver = Driver.builder()
-                                .id(driverId)
-                                .name("Driver " + driverId)
-                                .lat(lat)
-                                .lng(lng)
-                                .status("online")
-                                .createdAt(LocalDateTime.now())
-                                .build();
-                        return driverRepository.save(newDriver);
-                    });
-
-            try {
-                redisTemplate.opsForValue().set(knownKey, "true", Duration.ofDays(1));
-            } catch (Exception e) {
-                log.warn("Redis set error", e);
+        int stale = 0;
+        List<DriverLocation> locations = new ArrayList<>(newest.size());
+        List<SocketService.DriverMove> updated = new ArrayList<>(newest.size());
+        for (LocationPing ping : newest.values()) {
+            if (ping.getTs() != null && !claimNewer(ping.getDriverId(), ping.getTs())) {
+                stale++;
+                continue;
             }
-        } else {
-            // Construct response object without DB hit
-            driver = Driver.builder()
-                    .id(driverId)
-                    .name("Driver " + driverId)
-                    .lat(lat)
-                    .lng(lng)
-                    .status("online")
-                    .build();
+            long ts = ping.getTs() != null ? ping.getTs() : receivedAt;
+            DriverGridIndex.IndexedDriver previous = driverGridIndex.updateLocation(
+                    ping.getDriverId(), ping.getLat(), ping.getLng(), null);
+            String status = previous != null ? previous.status() : DriverGridIndex.STATUS_ONLINE;
+            String tier = previous != null ? previous.tier() : DriverGridIndex.DEFAULT_TIER;
+
+            locations.add(new DriverLocation(ping.getDriverId(), ping.getLat(), ping.getLng(), null, tier, ts));
+            driverWriteBehindBuffer.record(ping.getDriverId(), ping.getLat(), ping.getLng(),
+                    previous != null ? previous.tier() : null);
+            updated.add(new SocketService.DriverMove(Driver.builder()
+                    .id(ping.getDriverId())
+                    .name("Driver " + ping.getDriverId())
+                    .lat(ping.getLat())
+                    .lng(ping.getLng())
+                    .status(status)
+                    .tier(tier)
+                    .build(),
+                    previous != null ? previous.lat() : null,
+                    previous != null ? previous.lng() : null,
+                    ts));
         }
 
-        // Broadcast to all clients
-        socketService.sendDriverLocationUpdated(driver);
+        try {
+            storeSaveAll.record(() -> driverLocationStore.saveAll(locations));
+        } catch (Exception e) {
+            log.warn("Redis batch update error", e);
+        }
 
-        return driver;
+        socketService.sendDriverLocationsUpdated(updated);
+
+        log.debug("Location batch applied: received={}, accepted={}, dropped={}, coalesced={}, stale={}",
+                pings.size(), updated.size(), dropped, coalesced, stale);
+
+        return LocationBatchResult.builder()
+                .accepted(updated.size())
+                .dropped(dropped)
+                .coalesced(coalesced)
+                .stale(stale)
+                .build();
     }
 
     /**
      * Create a new driver (test helper)
      */
     public Driver createDriver(String name, Double lat, Double lng) {
-        Driver driver = Driver.builder()
+        Driver newDriver = Driver.builder()
                 .name(name != null ? name : "New Driver")
                 .lat(lat)
                 .lng(lng)
                 .status("online")
                 .createdAt(LocalDateTime.now())
                 .build();
-        return driverRepository.save(driver);
+        Driver driver = sqliteWriter.execute(() -> driverRepository.save(newDriver));
+
+        if (lat != null && lng != null) {
+            driverGridIndex.updateLocation(driver.getId(), lat, lng, driver.getTier());
+        }
+        return driver;
+    }
+
+    /**
+     * Find the nearest online drivers around a point
+     */
+    public List<NearbyDriver> findNearbyDrivers(double lat, double lng, int k, double radiusKm, String tier) {
+        return driverGridIndex.findNearest(lat, lng, k, radiusKm, tier);
+    }
+
+    /**
+     * Track a driver status change in the in-memory driver state
+     */
+    public void trackStatus(String driverId, String status) {
+        driverGridIndex.updateStatus(driverId, status);
+        if ("offline".equals(status)) {
+            DriverGridIndex.IndexedDriver indexed = driverGridIndex.get(driverId);
+            if (indexed != null) {
+                socketService.sendDriverLeft(driverId, indexed.lat(), indexed.lng());
+            }
+        }
+        driverWriteBehindBuffer.recordStatus(driverId, status);
+        try {
+            storeUpdateStatus.record(() -> driverLocationStore.updateStatus(driverId, status));
+        } catch (Exception e) {
+            log.warn("Redis status update error", e);
+        }
+    }
+
+    /**
+     * Find drivers around a point in the shared (cross-node) location store
+     */
+    public List<NearbyDriver> findLiveDrivers(double lat, double lng, double radiusKm, int limit) {
+        return storeSearch.record(() -> driverLocationStore.searchRadius(lat, lng, radiusKm, limit));
+    }
+
+    /**
+     * Drop drivers that stopped pinging from the shared location store, and the batch
+     * timestamps of drivers the grid index has evicted
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.geo.evict-interval-ms:60000}")
+    public void pruneStaleLocations() {
+        lastBatchPingTs.keySet().removeIf(driverId -> driverGridIndex.get(driverId) == null);
+        try {
+            driverLocationStore.pruneOlderThan(System.currentTimeMillis() - staleAfterSeconds * 1000L);
+        } catch (Exception e) {
+            log.warn("Redis prune error", e);
+        }
+    }
+
+    private static boolean isValid(LocationPing ping) {
+        return ping != null
+                && ping.getDriverId() != null && !ping.getDriverId().isBlank()
+                && ping.getLat() != null && ping.getLat() >= -90.0 && ping.getLat() <= 90.0
+                && ping.getLng() != null && ping.getLng() >= -180.0 && ping.getLng() <= 180.0;
+    }
+
+    /**
+     * Atomically advance the driver's last applied batch ping timestamp.
+     *
+     * @return false if a newer (or equally old) batch ping was already applied
+     */
+    private boolean claimNewer(String driverId, long ts) {
+        boolean[] claimed = new boolean[1];
+        lastBatchPingTs.compute(driverId, (id, last) -> {
+            if (last != null && last >= ts) {
+                return last;
+            }
+            claimed[0] = true;
+            return ts;
+        });
+        return claimed[0];
+    }
+
+    /**
+     * Driver profile: the stored row, with status and position from the index when the
+     * driver is live there
+     */
+    public Optional<DriverProfileView> getProfile(String driverId) {
+        DriverGridIndex.IndexedDriver live = driverGridIndex.get(driverId);
+        return driverRepository.findProfileById(driverId)
+                .map(profile -> live != null ? profile.withLiveState(live.status(), live.lat(), live.lng()) : profile);
     }
 
     /**
@@ -122,7 +308,8 @@ public class DriverService {
         return driverRepository.findById(driverId)
                 .map(driver -> {
                     driver.setStatus(status);
-                    return driverRepository.save(driver);
+                    trackStatus(driverId, status);
+                    return sqliteWriter.execute(() -> driverRepository.save(driver));
                 })
                 .orElse(null);
     }
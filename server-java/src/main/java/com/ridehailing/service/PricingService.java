@@ -1,19 +1,48 @@
 package com.ridehailing.service;
 
 import com.ridehailing.dto.FareBreakdown;
+import com.ridehailing.dto.FareEstimate;
+import com.ridehailing.dto.FareEstimateRequest;
+import com.ridehailing.events.BusinessEvent;
+import com.ridehailing.events.BusinessEventPublisher;
+import com.ridehailing.exception.InvalidQuoteException;
+import com.ridehailing.model.Ride;
+import com.ridehailing.pricing.DemandCounters;
+import com.ridehailing.pricing.QuoteCache;
+import com.ridehailing.pricing.SurgeSnapshot;
+import com.ridehailing.pricing.ZoneDemandTracker;
+import com.ridehailing.util.GeoUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class PricingService {
 
-    private final StringRedisTemplate redisTemplate;
+    private final DemandCounters demandCounters;
+    private final ZoneDemandTracker zoneDemandTracker;
+    private final MeterRegistry meterRegistry;
+    private final QuoteCache quoteCache;
+    private final BusinessEventPublisher eventPublisher;
+
+    private final AtomicReference<SurgeSnapshot> surgeSnapshot = new AtomicReference<>();
+    private Timer snapshotRefresh;
 
     // Surge pricing configuration (matches Node.js SURGE_CONFIG)
     private static final Map<String, TierConfig> SURGE_CONFIG = Map.of(
@@ -21,58 +50,176 @@ public class PricingService {
             "premium", new TierConfig(100.0, 20.0, 1.0, 3.5),
             "luxury", new TierConfig(200.0, 35.0, 1.0, 4.0));
 
-    private static final String PENDING_RIDES_KEY = "pending_rides_count";
-    private static final String AVAILABLE_DRIVERS_KEY = "available_drivers_count";
+    @PostConstruct
+    public void registerSurgeMetrics() {
+        surgeSnapshot.set(SurgeSnapshot.empty(zoneDemandTracker.getGrid()));
+        snapshotRefresh = Timer.builder("ridehailing.surge.snapshot.refresh")
+                .description("Time to recompute surge for all zones")
+                .register(meterRegistry);
+        Gauge.builder("ridehailing.surge.snapshot.age", surgeSnapshot, ref -> ref.get().ageMillis() / 1000.0)
+                .description("Seconds since the published surge snapshot was computed")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("ridehailing.surge.snapshot.zones", surgeSnapshot, ref -> ref.get().zoneCount())
+                .description("Zones in the published surge snapshot")
+                .register(meterRegistry);
+    }
 
     /**
-     * Calculate surge factor based on demand/supply ratio
+     * Surge factor for a pickup point, read from the published snapshot without any I/O
      */
     public double calculateSurgeFactor(double pickupLat, double pickupLng, String tier) {
-        try {
-            int pendingRides = 0;
-            int availableDrivers = 10; // Default
+        SurgeSnapshot snapshot = surgeSnapshot.get();
+        double surgeFactor = snapshot.factor(pickupLat, pickupLng, tier);
+        log.debug("Surge factor: tier={}, surgeFactor={}", tier, surgeFactor);
+        publishSurgeCalculated(snapshot, pickupLat, pickupLng, tier, surgeFactor);
+        return surgeFactor;
+    }
 
-            try {
-                String pendingRidesStr = redisTemplate.opsForValue().get(PENDING_RIDES_KEY);
-                String availableDriversStr = redisTemplate.opsForValue().get(AVAILABLE_DRIVERS_KEY);
+    /**
+     * Report a priced pickup to the business event sink. The demand ratio needs the
+     * live zone counters, so it is only looked up when a sink is listening.
+     */
+    private void publishSurgeCalculated(SurgeSnapshot snapshot, double lat, double lng, String tier,
+            double surgeFactor) {
+        if (!eventPublisher.isEnabled()) {
+            return;
+        }
+        ZoneDemandTracker.ZoneLoad load = zoneDemandTracker.load(lat, lng, tier);
+        eventPublisher.publish(BusinessEvent.SURGE_PRICING_CALCULATED, Map.of(
+                "tier", tier,
+                "zoneId", snapshot.zoneId(lat, lng),
+                "surgeFactor", surgeFactor,
+                "demand", load.demand(),
+                "supply", load.supply(),
+                "demandRatio", load.demand() / Math.max(load.supply(), 1.0)));
+    }
+
+    public SurgeSnapshot getSurgeSnapshot() {
+        return surgeSnapshot.get();
+    }
 
-                if (pendingRidesStr != null) {
-                    pendingRides = Integer.parseInt(pendingRidesStr);
+    /**
+     * Recompute surge for every zone in reach of demand or supply and publish it
+     * as a new snapshot
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.surge.refresh-interval-ms:1000}")
+    public void refreshSurgeSnapshot() {
+        long started = System.nanoTime();
+        try {
+            long epoch = zoneDemandTracker.currentEpoch();
+            Set<Long> zones = zoneDemandTracker.zonesInReach();
+            Map<Long, double[]> factors = new HashMap<>(zones.size() * 2);
+            for (Long zone : zones) {
+                double[] byTier = new double[ZoneDemandTracker.TIERS.size()];
+                boolean surging = false;
+                for (int t = 0; t < byTier.length; t++) {
+                    byTier[t] = surgeFactor(zoneDemandTracker.load(zone, t, epoch), ZoneDemandTracker.TIERS.get(t));
+                    surging |= byTier[t] != 1.0;
                 }
-                if (availableDriversStr != null) {
-                    availableDrivers = Integer.parseInt(availableDriversStr);
+                if (surging) {
+                    factors.put(zone, byTier);
                 }
-            } catch (Exception e) {
-                log.warn("Redis not available, using default values", e);
             }
+            surgeSnapshot.set(new SurgeSnapshot(zoneDemandTracker.getGrid(), factors, System.currentTimeMillis()));
+        } catch (Exception e) {
+            log.error("Error refreshing surge snapshot, keeping the previous one", e);
+        } finally {
+            snapshotRefresh.record(Duration.ofNanos(System.nanoTime() - started));
+        }
+    }
 
-            // Calculate demand-supply ratio
-            double demandSupplyRatio = availableDrivers > 0
-                    ? (double) pendingRides / availableDrivers
-                    : 1.0;
-
-            // Calculate surge factor based on ratio
-            double surgeFactor = 1.0;
-            if (demandSupplyRatio > 2.0) {
-                surgeFactor = 3.0; // High demand
-            } else if (demandSupplyRatio > 1.0) {
-                surgeFactor = 2.0; // Medium demand
-            } else if (demandSupplyRatio > 0.5) {
-                surgeFactor = 1.5; // Low demand
-            }
+    /**
+     * Map a zone's smoothed demand and supply to a surge factor within the tier limits
+     */
+    public double surgeFactor(ZoneDemandTracker.ZoneLoad load, String tier) {
+        // Calculate demand-supply ratio; an empty zone with demand counts as one driver
+        double demandSupplyRatio = load.demand() / Math.max(load.supply(), 1.0);
 
-            // Apply tier-specific limits
-            TierConfig config = SURGE_CONFIG.getOrDefault(tier, SURGE_CONFIG.get("economy"));
-            surgeFactor = Math.max(config.minSurge, Math.min(surgeFactor, config.maxSurge));
+        // Calculate surge factor based on ratio
+        double surgeFactor = 1.0;
+        if (demandSupplyRatio > 2.0) {
+            surgeFactor = 3.0; // High demand
+        } else if (demandSupplyRatio > 1.0) {
+            surgeFactor = 2.0; // Medium demand
+        } else if (demandSupplyRatio > 0.5) {
+            surgeFactor = 1.5; // Low demand
+        }
 
-            log.info("Surge factor calculated: tier={}, pendingRides={}, availableDrivers={}, ratio={}, surgeFactor={}",
-                    tier, pendingRides, availableDrivers, demandSupplyRatio, surgeFactor);
+        // Apply tier-specific limits
+        TierConfig config = SURGE_CONFIG.getOrDefault(tier, SURGE_CONFIG.get("economy"));
+        return Math.max(config.minSurge, Math.min(surgeFactor, config.maxSurge));
+    }
 
-            return surgeFactor;
-        } catch (Exception e) {
-            log.error("Error calculating surge factor", e);
-            return 1.0; // Default to no surge on error
+    /**
+     * Count a new ride request in its pickup zone
+     */
+    public void recordRideRequested(Ride ride) {
+        zoneDemandTracker.recordRequest(ride.getPickupLat(), ride.getPickupLng(), ride.getTier(),
+                toEpochMillis(ride.getCreatedAt()));
+    }
+
+    /**
+     * Remove a ride that was cancelled before assignment from its zone's demand
+     */
+    public void recordRideWithdrawn(Ride ride) {
+        zoneDemandTracker.recordCancellation(ride.getPickupLat(), ride.getPickupLng(), ride.getTier(),
+                toEpochMillis(ride.getCreatedAt()));
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time != null
+                ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : System.currentTimeMillis();
+    }
+
+    /**
+     * Price a trip for every tier and hold the prices as a bookable quote.
+     * Uses only the surge snapshot and in-memory state.
+     */
+    public FareEstimate estimateFares(FareEstimateRequest request) {
+        double distance = GeoUtils.getDistance(
+                request.getPickupLat(), request.getPickupLng(),
+                request.getDestLat(), request.getDestLng());
+
+        SurgeSnapshot snapshot = surgeSnapshot.get();
+        Map<String, FareBreakdown> fares = new LinkedHashMap<>();
+        for (String tier : ZoneDemandTracker.TIERS) {
+            double surgeFactor = snapshot.factor(request.getPickupLat(), request.getPickupLng(), tier);
+            publishSurgeCalculated(snapshot, request.getPickupLat(), request.getPickupLng(), tier, surgeFactor);
+            fares.put(tier, calculateFare(distance, tier, surgeFactor));
         }
+
+        QuoteCache.FareQuote quote = quoteCache.put(request.getPickupLat(), request.getPickupLng(),
+                request.getDestLat(), request.getDestLng(), distance, fares);
+
+        return FareEstimate.builder()
+                .quoteId(quote.id())
+                .distance(distance)
+                .fares(fares)
+                .expiresAt(quote.expiresAt())
+                .build();
+    }
+
+    /**
+     * Redeem a quote for a booking. Fails if the quote is unknown, expired, already
+     * used or was issued for a different trip.
+     */
+    public QuoteCache.FareQuote redeemQuote(String quoteId, double pickupLat, double pickupLng,
+            double destLat, double destLng) {
+        QuoteCache.FareQuote quote = quoteCache.take(quoteId);
+        if (quote == null) {
+            throw new InvalidQuoteException("Quote expired or unknown: " + quoteId);
+        }
+        if (!sameCoordinate(quote.pickupLat(), pickupLat) || !sameCoordinate(quote.pickupLng(), pickupLng)
+                || !sameCoordinate(quote.destLat(), destLat) || !sameCoordinate(quote.destLng(), destLng)) {
+            throw new InvalidQuoteException("Quote was issued for a different trip: " + quoteId);
+        }
+        return quote;
+    }
+
+    private static boolean sameCoordinate(double quoted, double requested) {
+        return Math.abs(quoted - requested) < 1e-6;
     }
 
     /**
@@ -96,22 +243,14 @@ public class PricingService {
     }
 
     /**
-     * Update demand metrics in Redis
+     * Update the city-wide demand counters (flushed to Redis in the background)
      */
     public void updateDemandMetrics(String action, String type) {
-        try {
-            String key = "ride".equals(type) ? PENDING_RIDES_KEY : AVAILABLE_DRIVERS_KEY;
-
-            if ("increment".equals(action)) {
-                redisTemplate.opsForValue().increment(key);
-            } else if ("decrement".equals(action)) {
-                String current = redisTemplate.opsForValue().get(key);
-                if (current != null && Integer.parseInt(current) > 0) {
-                    redisTemplate.opsForValue().decrement(key);
-                }
-            }
-        } catch (Exception e) {
-            log.error("Error updating demand metrics", e);
+        long delta = "increment".equals(action) ? 1 : "decrement".equals(action) ? -1 : 0;
+        if ("ride".equals(type)) {
+            demandCounters.addPendingRides(delta);
+        } else {
+            demandCounters.addAvailableDrivers(delta);
         }
     }
 
@@ -3,13 +3,14 @@ package com.ridehailing.service;
 import com.ridehailing.model.Driver;
 import com.ridehailing.model.Rating;
 import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.persistence.SqliteWriter;
 import com.ridehailing.repository.DriverRepository;
 import com.ridehailing.repository.RatingRepository;
 import com.ridehailing.repository.RideRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -21,16 +22,21 @@ public class RatingService {
     private final RatingRepository ratingRepository;
     private final RideRepository rideRepository;
     private final DriverRepository driverRepository;
+    private final SqliteWriter sqliteWriter;
 
     /**
-     * Submit a rating for a driver after a ride
+     * Submit a rating for a driver after a ride.
+     * Runs as one writer command, so the duplicate check and the insert cannot interleave.
      */
-    @Transactional
     public Rating submitRating(String rideId, Integer ratingValue, String comment) {
         // Validate rating value
         if (ratingValue < 1 || ratingValue > 5) {
             throw new RuntimeException("Rating must be between 1 and 5");
         }
+        return sqliteWriter.execute(() -> saveRating(rideId, ratingValue, comment));
+    }
+
+    private Rating saveRating(String rideId, Integer ratingValue, String comment) {
 
         // Check if rating already exists for this ride
         Optional<Rating> existingRating = ratingRepository.findByRideId(rideId);
@@ -42,7 +48,7 @@ public class RatingService {
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
 
-        if (!"completed".equals(ride.getStatus())) {
+        if (ride.getStatus() != RideStatus.COMPLETED) {
             throw new RuntimeException("Can only rate completed rides");
         }
 
@@ -3,6 +3,8 @@ package com.ridehailing.service;
 import com.ridehailing.dto.FareBreakdown;
 import com.ridehailing.model.Receipt;
 import com.ridehailing.model.Ride;
+import com.ridehailing.persistence.SqliteWriter;
+import com.ridehailing.readmodel.ReceiptView;
 import com.ridehailing.repository.ReceiptRepository;
 import com.ridehailing.repository.RideRepository;
 import lombok.RequiredArgsConstructor;
@@ -18,6 +20,7 @@ public class ReceiptService {
 
     private final ReceiptRepository receiptRepository;
     private final RideRepository rideRepository;
+    private final SqliteWriter sqliteWriter;
 
     /**
      * Generate a receipt for a completed ride
@@ -48,7 +51,8 @@ public class ReceiptService {
                     .transactionId(transactionId)
                     .build();
 
-            receipt = receiptRepository.save(receipt);
+            Receipt unsaved = receipt;
+            receipt = sqliteWriter.execute(() -> receiptRepository.save(unsaved));
 
             log.info("Receipt generated: rideId={}, receiptId={}", rideId, receipt.getId());
             return receipt;
@@ -61,9 +65,9 @@ public class ReceiptService {
     /**
      * Get receipt by ride ID
      */
-    public Optional<Receipt> getReceipt(String rideId) {
+    public Optional<ReceiptView> getReceipt(String rideId) {
         try {
-            return receiptRepository.findByRide_Id(rideId);
+            return receiptRepository.findViewByRideId(rideId);
         } catch (Exception e) {
             log.error("Error fetching receipt: rideId={}", rideId, e);
             throw e;
@@ -80,7 +84,8 @@ public class ReceiptService {
 
             receipt.setPaymentStatus(status);
             receipt.setTransactionId(transactionId);
-            receipt = receiptRepository.save(receipt);
+            Receipt updated = receipt;
+            receipt = sqliteWriter.execute(() -> receiptRepository.save(updated));
 
             log.info("Receipt payment status updated: rideId={}, status={}", rideId, status);
             return receipt;
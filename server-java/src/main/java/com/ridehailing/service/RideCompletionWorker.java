@@ -0,0 +1,231 @@
+package com.ridehailing.service;
+
+import com.ridehailing.dto.FareBreakdown;
+import com.ridehailing.events.BusinessEvent;
+import com.ridehailing.events.BusinessEventPublisher;
+import com.ridehailing.model.OutboxEntry;
+import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.persistence.SqliteWriter;
+import com.ridehailing.repository.DriverRepository;
+import com.ridehailing.repository.OutboxRepository;
+import com.ridehailing.repository.RideRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finishes completed rides off the end-trip path.
+ *
+ * RideService.endTrip commits only the status change and a ride_completed outbox
+ * entry. This worker drains due entries in batches: each entry is one SqliteWriter
+ * command (so a batch group-commits) that deletes the entry, generates the receipt
+ * and puts the driver back online, all in one transaction. A failed entry is rolled
+ * back on its own and retried with exponential backoff until max-attempts. Every
+ * step is idempotent, and an entry another run already finished is skipped.
+ *
+ * After the commit the worker updates the in-memory driver state and demand counters
+ * and publishes the trip event. Those run once per committed entry; a crash in between
+ * loses them, and the demand counter reconciliation repairs the counts.
+ *
+ * Payment and receipt reads call {@link #ensureCompleted} so they never run ahead of
+ * a receipt that is still queued.
+ */
+@Service
+@Slf4j
+public class RideCompletionWorker {
+
+    private static final List<Integer> ACTIVE_STATES = List.of(
+            RideStatus.ASSIGNED.code(), RideStatus.STARTED.code(), RideStatus.PAUSED.code());
+
+    private final OutboxRepository outboxRepository;
+    private final RideRepository rideRepository;
+    private final DriverRepository driverRepository;
+    private final ReceiptService receiptService;
+    private final PricingService pricingService;
+    private final DriverService driverService;
+    private final SqliteWriter sqliteWriter;
+    private final BusinessEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long writeTimeoutMs;
+
+    private final Counter completed;
+    private final Counter skipped;
+    private final Counter retried;
+    private final Counter abandoned;
+    private final Timer lag;
+
+    public RideCompletionWorker(OutboxRepository outboxRepository,
+            RideRepository rideRepository,
+            DriverRepository driverRepository,
+            ReceiptService receiptService,
+            PricingService pricingService,
+            DriverService driverService,
+            SqliteWriter sqliteWriter,
+            BusinessEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${ridehailing.outbox.batch-size:100}") int batchSize,
+            @Value("${ridehailing.outbox.max-attempts:10}") int maxAttempts,
+            @Value("${ridehailing.outbox.retry-backoff-ms:1000}") long retryBackoffMs,
+            @Value("${ridehailing.sqlite.write-timeout-ms:10000}") long writeTimeoutMs) {
+        this.outboxRepository = outboxRepository;
+        this.rideRepository = rideRepository;
+        this.driverRepository = driverRepository;
+        this.receiptService = receiptService;
+        this.pricingService = pricingService;
+        this.driverService = driverService;
+        this.sqliteWriter = sqliteWriter;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMs = retryBackoffMs;
+        this.writeTimeoutMs = writeTimeoutMs;
+
+        this.completed = outcomeCounter(meterRegistry, "completed");
+        this.skipped = outcomeCounter(meterRegistry, "skipped");
+        this.retried = outcomeCounter(meterRegistry, "retried");
+        this.abandoned = outcomeCounter(meterRegistry, "abandoned");
+        this.lag = Timer.builder("ridehailing.outbox.lag")
+                .description("Time from ride completion to its receipt and driver release committing")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("ridehailing.outbox.entries")
+                .description("Ride completion outbox entries processed by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drain due entries, one batch per run
+     */
+    @Scheduled(fixedDelayString = "${ridehailing.outbox.poll-interval-ms:100}")
+    public void drain() {
+        List<OutboxEntry> due;
+        try {
+            due = outboxRepository.findDue(OutboxEntry.RIDE_COMPLETED, LocalDateTime.now(), maxAttempts,
+                    PageRequest.of(0, batchSize));
+        } catch (Exception e) {
+            log.warn("Outbox poll failed: {}", e.getMessage());
+            return;
+        }
+        if (due.isEmpty()) {
+            return;
+        }
+
+        // Submit the whole batch before waiting so the writer commits it as one group
+        List<CompletableFuture<Completion>> futures = new ArrayList<>(due.size());
+        for (OutboxEntry entry : due) {
+            try {
+                futures.add(sqliteWriter.submit(() -> complete(entry)));
+            } catch (RejectedExecutionException e) {
+                log.debug("Write queue full, leaving {} outbox entries for the next run", due.size() - futures.size());
+                break;
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            OutboxEntry entry = due.get(i);
+            try {
+                afterCommit(futures.get(i).get(writeTimeoutMs, TimeUnit.MILLISECONDS));
+            } catch (ExecutionException e) {
+                recordFailure(entry, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                recordFailure(entry, e);
+            }
+        }
+    }
+
+    /**
+     * Finish a ride's completion now if its entry is still queued, so its receipt exists
+     */
+    public void ensureCompleted(String rideId) {
+        outboxRepository.findFirstByTypeAndRideId(OutboxEntry.RIDE_COMPLETED, rideId)
+                .ifPresent(entry -> afterCommit(sqliteWriter.execute(() -> complete(entry))));
+    }
+
+    /**
+     * Runs on the writer, inside its transaction
+     */
+    private Completion complete(OutboxEntry entry) {
+        if (outboxRepository.deleteEntry(entry.getId()) == 0) {
+            return null;
+        }
+        Ride ride = rideRepository.findById(entry.getRideId())
+                .orElseThrow(() -> new IllegalStateException("Ride not found: " + entry.getRideId()));
+
+        FareBreakdown fareBreakdown = pricingService.calculateFare(
+                ride.getDistance() != null ? ride.getDistance() : 0.0,
+                ride.getTier(),
+                ride.getSurgeFactor());
+        receiptService.generateReceipt(ride.getId(), fareBreakdown);
+
+        String driverId = ride.getDriver() != null ? ride.getDriver().getId() : null;
+        boolean released = driverId != null && driverRepository.releaseUnlessActive(driverId, ACTIVE_STATES) > 0;
+        return new Completion(ride, driverId, released, entry.getCreatedAt());
+    }
+
+    private void afterCommit(Completion completion) {
+        if (completion == null) {
+            skipped.increment();
+            return;
+        }
+        completed.increment();
+        lag.record(Duration.between(completion.completedAt(), LocalDateTime.now()));
+
+        if (completion.released()) {
+            driverService.trackStatus(completion.driverId(), "online");
+            pricingService.updateDemandMetrics("increment", "driver");
+        }
+        eventPublisher.publish(BusinessEvent.TRIP_EVENT, RideService.tripEvent(completion.ride(), "completed"));
+    }
+
+    private void recordFailure(OutboxEntry entry, Throwable error) {
+        int attempts = entry.getAttempts() + 1;
+        if (attempts >= maxAttempts) {
+            abandoned.increment();
+            log.error("Giving up on ride completion after {} attempts: rideId={}", attempts, entry.getRideId(), error);
+        } else {
+            retried.increment();
+            log.warn("Ride completion failed, will retry: rideId={}, attempt={}, error={}",
+                    entry.getRideId(), attempts, error.getMessage());
+        }
+        long backoffMs = retryBackoffMs << Math.min(attempts - 1, 10);
+        String message = String.valueOf(error.getMessage());
+        try {
+            sqliteWriter.executeWithoutResult(() -> outboxRepository.recordFailure(entry.getId(),
+                    message.length() > 500 ? message.substring(0, 500) : message,
+                    LocalDateTime.now().plus(Duration.ofMillis(backoffMs))));
+        } catch (Exception e) {
+            log.warn("Could not record outbox failure: rideId={}, error={}", entry.getRideId(), e.getMessage());
+        }
+    }
+
+    /**
+     * What a committed completion left for the in-memory side
+     *
+     * @param completedAt when the ride was completed (the entry's creation)
+     */
+    private record Completion(Ride ride, String driverId, boolean released, LocalDateTime completedAt) {
+    }
+}
@@ -2,19 +2,39 @@ package com.ridehailing.service;
 
 import com.ridehailing.dto.CreateRideRequest;
 import com.ridehailing.dto.FareBreakdown;
+import com.ridehailing.events.BusinessEvent;
+import com.ridehailing.events.BusinessEventPublisher;
+import com.ridehailing.exception.IllegalRideTransitionException;
+import com.ridehailing.exception.InvalidQuoteException;
+import com.ridehailing.exception.RideNotAvailableException;
+import com.ridehailing.matching.MatchingEngine;
 import com.ridehailing.model.Driver;
+import com.ridehailing.model.OutboxEntry;
 import com.ridehailing.model.Ride;
+import com.ridehailing.model.RideStatus;
+import com.ridehailing.model.RideTransition;
+import com.ridehailing.persistence.ActiveRideCache;
+import com.ridehailing.persistence.RideTransitions;
+import com.ridehailing.persistence.SqliteWriter;
+import com.ridehailing.pricing.QuoteCache;
+import com.ridehailing.readmodel.RideView;
 import com.ridehailing.repository.DriverRepository;
+import com.ridehailing.repository.OutboxRepository;
 import com.ridehailing.repository.RideRepository;
 import com.ridehailing.util.GeoUtils;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Service
 @RequiredArgsConstructor
@@ -22,32 +42,62 @@ import java.util.Random;
 public class RideService {
 
     private final RideRepository rideRepository;
+    private final OutboxRepository outboxRepository;
     private final DriverRepository driverRepository;
     private final PricingService pricingService;
-    private final ReceiptService receiptService;
     private final SocketService socketService;
+    private final DriverService driverService;
+    private final DispatchService dispatchService;
+    private final MatchingEngine matchingEngine;
+    private final SqliteWriter sqliteWriter;
+    private final RideTransitions rideTransitions;
+    private final ActiveRideCache activeRideCache;
+    private final BusinessEventPublisher eventPublisher;
+
+    private static final String LIFECYCLE_TIMER = "ridehailing.ride.lifecycle";
+    private static final long CLAIM_TTL_MILLIS = 10 * 60 * 1000L;
+
+    // rideId -> time the first accept claimed it
+    private final ConcurrentHashMap<String, Long> claims = new ConcurrentHashMap<>();
 
     /**
      * Create a new ride request
      */
+    @Timed(value = LIFECYCLE_TIMER, histogram = true)
     public Ride createRide(CreateRideRequest request) {
         try {
-            // Calculate distance using Haversine formula
-            double distance = GeoUtils.getDistance(
-                    request.getPickupLat(), request.getPickupLng(),
-                    request.getDestLat(), request.getDestLng());
-
-            // Calculate surge factor based on demand
-            double surgeFactor = pricingService.calculateSurgeFactor(
-                    request.getPickupLat(), request.getPickupLng(),
-                    request.getTier() != null ? request.getTier() : "economy");
-
-            // Calculate fare with surge pricing
             String tier = request.getTier() != null ? request.getTier() : "economy";
-            FareBreakdown fareBreakdown = pricingService.calculateFare(distance, tier, surgeFactor);
+            double distance;
+            double surgeFactor;
+            FareBreakdown fareBreakdown;
+
+            if (request.getQuoteId() != null) {
+                // Book at the price locked by the estimate
+                QuoteCache.FareQuote quote = pricingService.redeemQuote(request.getQuoteId(),
+                        request.getPickupLat(), request.getPickupLng(),
+                        request.getDestLat(), request.getDestLng());
+                fareBreakdown = quote.fares().get(tier);
+                if (fareBreakdown == null) {
+                    throw new InvalidQuoteException("Quote has no fare for tier: " + tier);
+                }
+                distance = quote.distance();
+                surgeFactor = fareBreakdown.getSurgeFactor();
+            } else {
+                // Calculate distance using Haversine formula
+                distance = GeoUtils.getDistance(
+                        request.getPickupLat(), request.getPickupLng(),
+                        request.getDestLat(), request.getDestLng());
+
+                // Calculate surge factor based on demand
+                surgeFactor = pricingService.calculateSurgeFactor(
+                        request.getPickupLat(), request.getPickupLng(), tier);
+
+                // Calculate fare with surge pricing
+                fareBreakdown = pricingService.calculateFare(distance, tier, surgeFactor);
+            }
 
             // Create ride entity
-            Ride ride = Ride.builder()
+            Ride newRide = Ride.builder()
                     .riderId(request.getRiderId())
                     .pickupLat(request.getPickupLat())
                     .pickupLng(request.getPickupLng())
@@ -58,22 +108,41 @@ public class RideService {
                     .distance(distance)
                     .price(fareBreakdown.getTotalFare())
                     .surgeFactor(surgeFactor)
-                    .status("requested")
+                    .status(RideStatus.REQUESTED)
                     .createdAt(LocalDateTime.now())
                     .build();
 
-            ride = rideRepository.save(ride);
+            Ride ride = sqliteWriter.execute(() -> rideRepository.save(newRide));
+            activeRideCache.put(ride);
 
             // Update demand metrics
             pricingService.updateDemandMetrics("increment", "ride");
+            pricingService.recordRideRequested(ride);
 
-            // Notify all online drivers via WebSocket
-            socketService.sendRideRequested(ride);
+            // Pool the ride for batched matching, or offer it to the nearest eligible drivers
+            if (matchingEngine.isEnabled()) {
+                matchingEngine.submit(ride);
+            } else {
+                dispatchService.dispatch(ride);
+            }
 
             log.info("Ride created: rideId={}, tier={}, surgeFactor={}, price={}",
                     ride.getId(), tier, surgeFactor, ride.getPrice());
 
+            Map<String, Object> event = new HashMap<>();
+            event.put("rideId", ride.getId());
+            event.put("riderId", ride.getRiderId());
+            event.put("tier", tier);
+            event.put("surgeFactor", surgeFactor);
+            event.put("price", ride.getPrice());
+            event.put("distance", distance);
+            event.put("paymentMethod", ride.getPaymentMethod());
+            event.put("quoted", request.getQuoteId() != null);
+            eventPublisher.publish(BusinessEvent.RIDE_CREATED, event);
+
             return ride;
+        } catch (InvalidQuoteException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error creating ride", e);
             throw new RuntimeException("Failed to create ride: " + e.getMessage());
@@ -81,89 +150,111 @@ public class RideService {
     }
 
     /**
-     * Get ride by ID with related entities
+     * Get ride by ID with its driver summary
      */
-    public Optional<Ride> getRideById(String id) {
-        return rideRepository.findById(id);
+    public Optional<RideView> getRideById(String id) {
+        return activeRideCache.get(id).map(ActiveRideCache.CachedRide::ride);
     }
 
     /**
-     * Driver accepts a ride request
+     * Get ride by ID with its serialized form and the ETag of its current version
      */
-    @Transactional
+    public Optional<ActiveRideCache.CachedRide> getCachedRide(String id) {
+        return activeRideCache.get(id);
+    }
+
+    /**
+     * Driver accepts a ride request.
+     *
+     * Claiming is a compare-and-set: the first accept for a ride takes the in-memory
+     * claim, every other accept is rejected with RideNotAvailableException before
+     * touching the database, and the claim itself is a conditional UPDATE so the
+     * database never assigns a ride twice.
+     */
+    @Timed(value = LIFECYCLE_TIMER, histogram = true)
     public Ride acceptRide(String rideId, String driverId) {
+        if (claims.putIfAbsent(rideId, System.currentTimeMillis()) != null) {
+            throw new RideNotAvailableException(rideId);
+        }
+
+        Ride ride;
         try {
-            // Find and validate ride
-            Ride ride = rideRepository.findById(rideId)
-                    .orElseThrow(() -> new RuntimeException("Ride not found"));
+            ride = sqliteWriter.execute(() -> assignDriver(rideId, driverId));
+            activeRideCache.put(ride);
+        } catch (RideNotAvailableException e) {
+            log.debug("Ride claim lost in database: rideId={}, driverId={}", rideId, driverId);
+            throw e;
+        } catch (Exception e) {
+            // Nothing was committed, let the next accept try again
+            claims.remove(rideId);
+            log.error("Error accepting ride: rideId={}, driverId={}", rideId, driverId, e);
+            throw new RuntimeException("Failed to accept ride: " + e.getMessage());
+        }
 
-            if (!"requested".equals(ride.getStatus())) {
-                throw new RuntimeException("Ride not available");
-            }
+        driverService.trackStatus(driverId, "busy");
 
-            // Find or create driver
-            Driver driver = driverRepository.findById(driverId)
-                    .orElseGet(() -> Driver.builder()
-                            .id(driverId)
-                            .name("Driver " + driverId)
-                            .status("busy")
-                            .createdAt(LocalDateTime.now())
-                            .build());
+        // Update demand metrics
+        pricingService.updateDemandMetrics("decrement", "ride");
+        pricingService.updateDemandMetrics("decrement", "driver");
 
-            driver.setStatus("busy");
-            driver = driverRepository.save(driver);
+        // Withdraw the offer from the other drivers
+        dispatchService.close(rideId, driverId);
+        matchingEngine.withdraw(rideId);
 
-            // Generate 4-digit OTP for rider verification
-            String otp = String.format("%04d", new Random().nextInt(10000));
+        // Broadcast status update
+        socketService.sendRideStatusUpdated(ride);
 
-            // Update ride with driver assignment and OTP
-            ride.setStatus("assigned");
-            ride.setDriver(driver);
-            ride.setOtp(otp);
-            ride = rideRepository.save(ride);
+        log.info("Ride accepted: rideId={}, driverId={}", rideId, driverId);
+        publishTripEvent(ride, "accepted");
 
-            // Update demand metrics
-            pricingService.updateDemandMetrics("decrement", "ride");
-            pricingService.updateDemandMetrics("decrement", "driver");
+        return ride;
+    }
 
-            // Broadcast status update
-            socketService.sendRideStatusUpdated(ride);
+    private Ride assignDriver(String rideId, String driverId) {
+        // Generate 4-digit OTP for rider verification
+        String otp = String.format("%04d", ThreadLocalRandom.current().nextInt(10000));
 
-            log.info("Ride accepted: rideId={}, driverId={}", rideId, driverId);
+        // The driver row must exist before the returned ride loads it; rolled back if the claim fails
+        driverRepository.upsertStatus(driverId, "Driver " + driverId, "busy", LocalDateTime.now());
 
-            return ride;
-        } catch (Exception e) {
-            log.error("Error accepting ride: rideId={}, driverId={}", rideId, driverId, e);
-            throw new RuntimeException("Failed to accept ride: " + e.getMessage());
-        }
+        return rideTransitions.accept(rideId, driverId, otp).orElseThrow(() -> {
+            if (!rideRepository.existsById(rideId)) {
+                return new RuntimeException("Ride not found");
+            }
+            return new RideNotAvailableException(rideId);
+        });
+    }
+
+    /**
+     * Forget old claims. Rides behind them are no longer requested, so a late
+     * accept still loses on the conditional UPDATE.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeClaims() {
+        long cutoff = System.currentTimeMillis() - CLAIM_TTL_MILLIS;
+        claims.values().removeIf(claimedAt -> claimedAt < cutoff);
     }
 
     /**
      * Start a trip with OTP verification
      */
+    @Timed(value = LIFECYCLE_TIMER, histogram = true)
     public Ride startTrip(String rideId, String otp) {
         try {
-            Ride ride = rideRepository.findById(rideId)
-                    .orElseThrow(() -> new RuntimeException("Ride not found"));
-
-            // Validate OTP
-            if (ride.getOtp() == null || !ride.getOtp().equals(otp)) {
-                throw new RuntimeException("Invalid OTP");
-            }
-
-            if (!"assigned".equals(ride.getStatus())) {
-                throw new RuntimeException("Ride must be assigned before starting");
-            }
-
-            ride.setStatus("started");
-            ride.setStartedAt(LocalDateTime.now());
-            ride.setOtp(null); // Clear OTP after verification
-            ride = rideRepository.save(ride);
+            // Only matches an assigned ride with this OTP
+            Ride ride = sqliteWriter.execute(() -> rideTransitions.start(rideId, otp))
+                    .orElseThrow(() -> rideRepository.findStatusById(rideId).orElse(null) == RideStatus.ASSIGNED
+                            ? new RuntimeException("Invalid OTP")
+                            : rejection(rideId, RideTransition.START));
+            activeRideCache.put(ride);
 
             socketService.sendRideStatusUpdated(ride);
 
             log.info("Trip started: rideId={}", rideId);
+            publishTripEvent(ride, "started");
             return ride;
+        } catch (IllegalRideTransitionException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error starting trip: rideId={}", rideId, e);
             throw new RuntimeException("Failed to start trip: " + e.getMessage());
@@ -173,19 +264,18 @@ public class RideService {
     /**
      * Pause a trip
      */
+    @Timed(value = LIFECYCLE_TIMER, histogram = true)
     public Ride pauseTrip(String rideId) {
         try {
-            Ride ride = rideRepository.findById(rideId)
-                    .orElseThrow(() -> new RuntimeException("Ride not found"));
-
-            ride.setStatus("paused");
-            ride.setPausedAt(LocalDateTime.now());
-            ride = rideRepository.save(ride);
+            Ride ride = transition(rideId, RideTransition.PAUSE);
 
             socketService.sendRideStatusUpdated(ride);
 
             log.info("Trip paused: rideId={}", rideId);
+            publishTripEvent(ride, "paused");
             return ride;
+        } catch (IllegalRideTransitionException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error pausing trip: rideId={}", rideId, e);
             throw new RuntimeException("Failed to pause trip: " + e.getMessage());
@@ -195,19 +285,18 @@ public class RideService {
     /**
      * Resume a paused trip
      */
+    @Timed(value = LIFECYCLE_TIMER, histogram = true)
     public Ride resumeTrip(String rideId) {
         try {
-            Ride ride = rideRepository.findById(rideId)
-                    .orElseThrow(() -> new RuntimeException("Ride not found"));
-
-            ride.setStatus("started");
-            ride.setPausedAt(null);
-            ride = rideRepository.save(ride);
+            Ride ride = transition(rideId, RideTransition.RESUME);
 
             socketService.sendRideStatusUpdated(ride);
 
             log.info("Trip resumed: rideId={}", rideId);
+            publishTripEvent(ride, "resumed");
             return ride;
+        } catch (IllegalRideTransitionException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error resuming trip: rideId={}", rideId, e);
             throw new RuntimeException("Failed to resume trip: " + e.getMessage());
@@ -215,38 +304,28 @@ public class RideService {
     }
 
     /**
-     * End a trip
+     * End a started or paused trip.
+     *
+     * Commits only the status change and a ride_completed outbox entry; the receipt,
+     * driver release, demand counters and trip event follow in RideCompletionWorker.
      */
-    @Transactional
+    @Timed(value = LIFECYCLE_TIMER, histogram = true)
     public Ride endTrip(String rideId) {
         try {
-            Ride ride = rideRepository.findById(rideId)
-                    .orElseThrow(() -> new RuntimeException("Ride not found"));
-
-            ride.setStatus("completed");
-            ride.setCompletedAt(LocalDateTime.now());
-            ride = rideRepository.save(ride);
-
-            // Generate receipt
-            FareBreakdown fareBreakdown = pricingService.calculateFare(
-                    ride.getDistance() != null ? ride.getDistance() : 0.0,
-                    ride.getTier(),
-                    ride.getSurgeFactor());
-            receiptService.generateReceipt(rideId, fareBreakdown);
-
-            // Free up driver
-            if (ride.getDriver() != null) {
-                Driver driver = ride.getDriver();
-                driver.setStatus("online");
-                driverRepository.save(driver);
-
-                pricingService.updateDemandMetrics("increment", "driver");
-            }
+            Ride ride = sqliteWriter.execute(() -> rideTransitions.apply(rideId, RideTransition.COMPLETE)
+                    .map(completed -> {
+                        outboxRepository.save(OutboxEntry.rideCompleted(rideId));
+                        return completed;
+                    }))
+                    .orElseThrow(() -> rejection(rideId, RideTransition.COMPLETE));
+            activeRideCache.put(ride);
 
             socketService.sendRideStatusUpdated(ride);
 
             log.info("Trip ended: rideId={}", rideId);
             return ride;
+        } catch (IllegalRideTransitionException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error ending trip: rideId={}", rideId, e);
             throw new RuntimeException("Failed to end trip: " + e.getMessage());
@@ -254,36 +333,103 @@ public class RideService {
     }
 
     /**
-     * Cancel a ride
+     * Cancel a ride that has not completed
      */
-    @Transactional
+    @Timed(value = LIFECYCLE_TIMER, histogram = true)
     public Ride cancelRide(String rideId, String reason) {
         try {
-            Ride ride = rideRepository.findById(rideId)
-                    .orElseThrow(() -> new RuntimeException("Ride not found"));
-
-            ride.setStatus("cancelled");
-            ride = rideRepository.save(ride);
+            Ride ride = sqliteWriter.execute(() -> rideTransitions.apply(rideId, RideTransition.CANCEL)
+                    .map(cancelled -> {
+                        // Free up driver if assigned
+                        freeDriver(cancelled);
+                        return cancelled;
+                    }))
+                    .orElseThrow(() -> rejection(rideId, RideTransition.CANCEL));
+            activeRideCache.put(ride);
+            // Only a requested ride has no driver yet
+            boolean unassigned = ride.getDriver() == null;
+
+            dispatchService.close(rideId, null);
+            matchingEngine.withdraw(rideId);
 
-            // Free up driver if assigned
             if (ride.getDriver() != null) {
-                Driver driver = ride.getDriver();
-                driver.setStatus("online");
-                driverRepository.save(driver);
+                driverService.trackStatus(ride.getDriver().getId(), "online");
 
                 pricingService.updateDemandMetrics("increment", "driver");
             }
 
             // Update demand metrics
             pricingService.updateDemandMetrics("decrement", "ride");
+            if (unassigned) {
+                pricingService.recordRideWithdrawn(ride);
+            }
 
             socketService.sendRideStatusUpdated(ride);
 
             log.info("Ride cancelled: rideId={}, reason={}", rideId, reason);
+            publishTripEvent(ride, "cancelled");
             return ride;
+        } catch (IllegalRideTransitionException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error cancelling ride: rideId={}", rideId, e);
             throw new RuntimeException("Failed to cancel ride: " + e.getMessage());
         }
     }
+
+    /**
+     * Cancel a ride dispatch gave up on, unless a driver accepted it meanwhile
+     */
+    @EventListener
+    public void onDispatchExhausted(DispatchService.DispatchExhausted exhausted) {
+        try {
+            cancelRide(exhausted.rideId(), "no drivers available");
+        } catch (IllegalRideTransitionException e) {
+            log.debug("Exhausted ride no longer cancellable: rideId={}", exhausted.rideId());
+        } catch (Exception e) {
+            log.warn("Could not cancel exhausted ride: rideId={}, error={}", exhausted.rideId(), e.getMessage());
+        } finally {
+            dispatchService.close(exhausted.rideId(), null);
+        }
+    }
+
+    /**
+     * Apply a transition through the writer and write the result through to the cache.
+     * A rejected transition writes nothing, so the reason is looked up afterwards,
+     * outside the write transaction.
+     */
+    private Ride transition(String rideId, RideTransition transition) {
+        Ride ride = sqliteWriter.execute(() -> rideTransitions.apply(rideId, transition))
+                .orElseThrow(() -> rejection(rideId, transition));
+        activeRideCache.put(ride);
+        return ride;
+    }
+
+    private RuntimeException rejection(String rideId, RideTransition transition) {
+        return rideRepository.findStatusById(rideId)
+                .<RuntimeException>map(current -> new IllegalRideTransitionException(rideId, transition, current))
+                .orElseGet(() -> new RuntimeException("Ride not found"));
+    }
+
+    private void freeDriver(Ride ride) {
+        if (ride.getDriver() != null) {
+            Driver driver = ride.getDriver();
+            driver.setStatus("online");
+            driverRepository.save(driver);
+        }
+    }
+
+    private void publishTripEvent(Ride ride, String eventType) {
+        eventPublisher.publish(BusinessEvent.TRIP_EVENT, tripEvent(ride, eventType));
+    }
+
+    static Map<String, Object> tripEvent(Ride ride, String eventType) {
+        Map<String, Object> event = new HashMap<>();
+        event.put("rideId", ride.getId());
+        event.put("eventType", eventType);
+        event.put("tier", ride.getTier());
+        event.put("driverId", ride.getDriver() != null ? ride.getDriver().getId() : null);
+        event.put("price", ride.getPrice());
+        return event;
+    }
 }
@@ -1,37 +1,177 @@
 package com.ridehailing.service;
 
+import com.ridehailing.dto.DriverLocationEvent;
+import com.ridehailing.geo.GeoGrid;
+import com.ridehailing.location.LocationBroadcastFilter;
 import com.ridehailing.model.Driver;
 import com.ridehailing.model.Ride;
-import lombok.RequiredArgsConstructor;
+import com.ridehailing.util.GeoUtils;
+import com.ridehailing.wire.DriverHandles;
+import com.ridehailing.wire.LocationFrame;
+import com.ridehailing.wire.LocationSubscriptions;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class SocketService {
 
+    private static final String CELL_TOPIC_PREFIX = LocationSubscriptions.CELL_TOPIC_PREFIX;
+    private static final String BINARY_CELL_TOPIC_PREFIX = LocationSubscriptions.BINARY_CELL_TOPIC_PREFIX;
+    private static final Map<String, Object> BINARY_HEADERS =
+            Map.of(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_OCTET_STREAM);
+
+    // Below this the heading of a move is GPS noise and is sent as unknown
+    private static final double MIN_HEADING_MOVE_KM = 0.005;
+
     private final SimpMessagingTemplate messagingTemplate;
+    private final LocationSubscriptions locationSubscriptions;
+    private final DriverHandles driverHandles;
+    private final LocationBroadcastFilter broadcastFilter;
+    private final boolean sendVelocity;
+
+    // Coarser than the matching index so a city viewport needs only a handful of topics
+    private final GeoGrid broadcastGrid;
+
+    // Serialize + broker fan-out + enqueue on the outbound channel, per destination kind
+    private final Timer rideRequestedSend;
+    private final Timer rideOfferSend;
+    private final Timer rideOfferWithdrawnSend;
+    private final Timer rideStatusSend;
+    private final Timer rideNoDriversSend;
+    private final Timer driverCellSend;
+    private final Timer driverCellBinarySend;
+    private final DistributionSummary binaryFrameBytes;
+
+    // Single-driver moves waiting for the next tick, coalesced per driver (tick-ms > 0 only)
+    private final ConcurrentHashMap<String, DriverMove> pendingMoves = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService tickScheduler;
+
+    public SocketService(SimpMessagingTemplate messagingTemplate,
+            MeterRegistry meterRegistry,
+            LocationSubscriptions locationSubscriptions,
+            DriverHandles driverHandles,
+            LocationBroadcastFilter broadcastFilter,
+            @Value("${ridehailing.socket.cell-size-deg:0.05}") double cellSizeDeg,
+            @Value("${ridehailing.socket.location.tick-ms:0}") long tickMs,
+            @Value("${ridehailing.socket.location.send-velocity:false}") boolean sendVelocity) {
+        this.messagingTemplate = messagingTemplate;
+        this.locationSubscriptions = locationSubscriptions;
+        this.driverHandles = driverHandles;
+        this.broadcastFilter = broadcastFilter;
+        this.sendVelocity = sendVelocity;
+        this.broadcastGrid = new GeoGrid(cellSizeDeg);
+        this.rideRequestedSend = sendTimer(meterRegistry, "ride_requested");
+        this.rideOfferSend = sendTimer(meterRegistry, "ride_offers");
+        this.rideOfferWithdrawnSend = sendTimer(meterRegistry, "ride_offer_withdrawn");
+        this.rideStatusSend = sendTimer(meterRegistry, "ride_status_updated");
+        this.rideNoDriversSend = sendTimer(meterRegistry, "ride_no_drivers");
+        this.driverCellSend = sendTimer(meterRegistry, "driver_cell");
+        this.driverCellBinarySend = sendTimer(meterRegistry, "driver_cell_binary");
+        this.binaryFrameBytes = DistributionSummary.builder("ridehailing.websocket.location.frame.bytes")
+                .description("Size of binary driver location frames")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        if (tickMs > 0) {
+            this.tickScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "location-tick");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.tickScheduler.scheduleWithFixedDelay(this::flushPendingMoves, tickMs, tickMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.tickScheduler = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (tickScheduler != null) {
+            tickScheduler.shutdownNow();
+        }
+    }
+
+    private static Timer sendTimer(MeterRegistry meterRegistry, String destination) {
+        return Timer.builder("ridehailing.websocket.send")
+                .description("Time to convert and hand a STOMP message to the broker")
+                .tag("destination", destination)
+                .register(meterRegistry);
+    }
 
     /**
      * Broadcast when a new ride is requested
      */
     public void sendRideRequested(Ride ride) {
         try {
-            messagingTemplate.convertAndSend("/topic/ride_requested", ride);
+            rideRequestedSend.record(() -> messagingTemplate.convertAndSend("/topic/ride_requested", ride));
             log.debug("Broadcasted ride_requested: rideId={}", ride.getId());
         } catch (Exception e) {
             log.error("Error broadcasting ride_requested", e);
         }
     }
 
+    /**
+     * Offer a ride to a single driver on its user destination
+     */
+    public void sendRideOffer(String driverId, Ride ride) {
+        try {
+            rideOfferSend.record(() -> messagingTemplate.convertAndSendToUser(driverId, "/queue/ride_offers", ride));
+            log.debug("Sent ride offer: rideId={}, driverId={}", ride.getId(), driverId);
+        } catch (Exception e) {
+            log.error("Error sending ride offer: driverId={}", driverId, e);
+        }
+    }
+
+    /**
+     * Tell a driver that an outstanding offer is no longer available
+     */
+    public void sendRideOfferWithdrawn(String driverId, String rideId) {
+        try {
+            rideOfferWithdrawnSend.record(() -> messagingTemplate.convertAndSendToUser(driverId,
+                    "/queue/ride_offer_withdrawn", Map.of("rideId", rideId)));
+            log.debug("Sent ride offer withdrawal: rideId={}, driverId={}", rideId, driverId);
+        } catch (Exception e) {
+            log.error("Error sending ride offer withdrawal: driverId={}", driverId, e);
+        }
+    }
+
+    /**
+     * Tell the rider no driver accepted yet and when dispatch searches again
+     */
+    public void sendRideNoDrivers(Ride ride, long nextRetryAt) {
+        try {
+            rideNoDriversSend.record(() -> messagingTemplate.convertAndSendToUser(ride.getRiderId(),
+                    "/queue/ride_no_drivers", Map.of("rideId", ride.getId(), "nextRetryAt", nextRetryAt)));
+            log.debug("Sent ride_no_drivers: rideId={}, riderId={}", ride.getId(), ride.getRiderId());
+        } catch (Exception e) {
+            log.error("Error sending ride_no_drivers: riderId={}", ride.getRiderId(), e);
+        }
+    }
+
     /**
      * Broadcast when ride status changes
      */
     public void sendRideStatusUpdated(Ride ride) {
         try {
-            messagingTemplate.convertAndSend("/topic/ride_status_updated", ride);
+            rideStatusSend.record(() -> messagingTemplate.convertAndSend("/topic/ride_status_updated", ride));
             log.debug("Broadcasted ride_status_updated: rideId={}, status={}", ride.getId(), ride.getStatus());
         } catch (Exception e) {
             log.error("Error broadcasting ride_status_updated", e);
@@ -39,14 +179,225 @@ public class SocketService {
     }
 
     /**
-     * Broadcast when driver location updates
+     * Publish a driver location update to the driver's cell topic.
+     * If the driver crossed a cell boundary the previous cell is told it left.
+     * With a tick configured the update is held and packed with the other drivers
+     * that moved during the tick.
      */
-    public void sendDriverLocationUpdated(Driver driver) {
+    public void sendDriverLocationUpdated(Driver driver, Double previousLat, Double previousLng) {
+        DriverMove move = new DriverMove(driver, previousLat, previousLng);
+        if (tickScheduler == null) {
+            sendDriverLocationsUpdated(List.of(move));
+            return;
+        }
+        // Keep the position last broadcast so a cell crossing within the tick is still announced
+        pendingMoves.merge(driver.getId(), move, (held, next) ->
+                new DriverMove(next.driver(), held.previousLat(), held.previousLng(), next.ts()));
+    }
+
+    /**
+     * Publish a batch of driver location updates, one message per affected cell
+     * and format. Updates the broadcast filter holds back (driver barely moved
+     * since it was last broadcast) are dropped here.
+     */
+    public void sendDriverLocationsUpdated(List<DriverMove> moves) {
+        if (moves.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<DriverLocationEvent>> byCell = new LinkedHashMap<>();
+        Map<Long, List<LocationFrame.Record>> binaryByCell = new LinkedHashMap<>();
+        int sent = 0;
+        for (DriverMove move : moves) {
+            Driver driver = move.driver();
+            long cellKey = broadcastGrid.cellOf(driver.getLat(), driver.getLng());
+            LocationBroadcastFilter.Broadcast broadcast = broadcastFilter.offer(driver.getId(),
+                    driver.getLat(), driver.getLng(), cellKey, driver.getStatus(), driver.getTier(), move.ts());
+            if (broadcast == null) {
+                continue;
+            }
+            sent++;
+
+            // Cell crossings are judged against where clients last saw the driver
+            Double previousLat = broadcast.previousLat() != null ? broadcast.previousLat() : move.previousLat();
+            Double previousLng = broadcast.previousLng() != null ? broadcast.previousLng() : move.previousLng();
+            double heading = !Double.isNaN(broadcast.heading())
+                    ? broadcast.heading()
+                    : headingOf(previousLat, previousLng, driver);
+            double speedMps = sendVelocity ? broadcast.speedMps() : Double.NaN;
+
+            byCell.computeIfAbsent(cellKey, key -> new ArrayList<>())
+                    .add(locationEvent(driver, cellKey, heading, speedMps));
+            if (locationSubscriptions.hasBinarySubscribers(GeoGrid.cellId(cellKey))) {
+                binaryByCell.computeIfAbsent(cellKey, key -> new ArrayList<>())
+                        .add(frameRecord(driver, LocationFrame.statusCode(driver.getStatus()), heading, speedMps,
+                                move.ts()));
+            }
+
+            if (previousLat != null && previousLng != null) {
+                long previousCellKey = broadcastGrid.cellOf(previousLat, previousLng);
+                if (previousCellKey != cellKey) {
+                    byCell.computeIfAbsent(previousCellKey, key -> new ArrayList<>())
+                            .add(leftEvent(driver.getId(), previousCellKey, GeoGrid.cellId(cellKey)));
+                    if (locationSubscriptions.hasBinarySubscribers(GeoGrid.cellId(previousCellKey))) {
+                        binaryByCell.computeIfAbsent(previousCellKey, key -> new ArrayList<>())
+                                .add(frameRecord(driver, LocationFrame.STATUS_LEFT, heading, speedMps, move.ts()));
+                    }
+                }
+            }
+        }
+
+        for (Map.Entry<Long, List<DriverLocationEvent>> cell : byCell.entrySet()) {
+            String cellId = GeoGrid.cellId(cell.getKey());
+            try {
+                List<DriverLocationEvent> events = cell.getValue();
+                driverCellSend.record(() -> messagingTemplate.convertAndSend(CELL_TOPIC_PREFIX + cellId, events));
+            } catch (Exception e) {
+                log.error("Error broadcasting driver cell update: cellId={}", cellId, e);
+            }
+        }
+        for (Map.Entry<Long, List<LocationFrame.Record>> cell : binaryByCell.entrySet()) {
+            sendBinaryFrames(GeoGrid.cellId(cell.getKey()), cell.getValue());
+        }
+        log.debug("Broadcasted driver location updates: drivers={}, suppressed={}, cells={}, binaryCells={}",
+                sent, moves.size() - sent, byCell.size(), binaryByCell.size());
+    }
+
+    /**
+     * Send the moves held since the last tick
+     */
+    void flushPendingMoves() {
+        if (pendingMoves.isEmpty()) {
+            return;
+        }
+        List<DriverMove> moves = new ArrayList<>(pendingMoves.size());
+        for (String driverId : pendingMoves.keySet()) {
+            DriverMove move = pendingMoves.remove(driverId);
+            if (move != null) {
+                moves.add(move);
+            }
+        }
         try {
-            messagingTemplate.convertAndSend("/topic/driver_location_updated", driver);
-            log.debug("Broadcasted driver_location_updated: driverId={}", driver.getId());
+            sendDriverLocationsUpdated(moves);
         } catch (Exception e) {
-            log.error("Error broadcasting driver_location_updated", e);
+            log.error("Error flushing driver location tick: drivers={}", moves.size(), e);
+        }
+    }
+
+    /**
+     * Tell a driver's cell that it is no longer available (e.g. went offline)
+     */
+    public void sendDriverLeft(String driverId, double lat, double lng) {
+        long cellKey = broadcastGrid.cellOf(lat, lng);
+        String cellId = GeoGrid.cellId(cellKey);
+        // A move still held for the tick must not re-add the driver after it left,
+        // and the driver's next update must be broadcast whatever its distance
+        pendingMoves.remove(driverId);
+        broadcastFilter.forget(driverId);
+        try {
+            driverCellSend.record(() -> messagingTemplate.convertAndSend(CELL_TOPIC_PREFIX + cellId,
+                    List.of(leftEvent(driverId, cellKey, null))));
+        } catch (Exception e) {
+            log.error("Error broadcasting driver left: cellId={}", cellId, e);
+        }
+        if (locationSubscriptions.hasBinarySubscribers(cellId)) {
+            sendBinaryFrames(cellId, List.of(new LocationFrame.Record(driverHandles.handleOf(driverId), lat, lng,
+                    Double.NaN, Double.NaN, LocationFrame.STATUS_LEFT, LocationFrame.TIER_OTHER, System.currentTimeMillis())));
+        }
+    }
+
+    /**
+     * Cell ids whose topics a client must subscribe to in order to see a viewport
+     *
+     * @return null if the viewport covers more than maxCells cells
+     */
+    public List<String> cellsCovering(double minLat, double minLng, double maxLat, double maxLng, int maxCells) {
+        int minRow = broadcastGrid.row(Math.min(minLat, maxLat));
+        int maxRow = broadcastGrid.row(Math.max(minLat, maxLat));
+        int minCol = broadcastGrid.col(Math.min(minLng, maxLng));
+        int maxCol = broadcastGrid.col(Math.max(minLng, maxLng));
+
+        long count = (long) (maxRow - minRow + 1) * (maxCol - minCol + 1);
+        if (count > maxCells) {
+            return null;
+        }
+
+        List<String> cellIds = new ArrayList<>((int) count);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int col = minCol; col <= maxCol; col++) {
+                cellIds.add(GeoGrid.cellId(GeoGrid.key(row, col)));
+            }
+        }
+        return cellIds;
+    }
+
+    public double getCellSizeDeg() {
+        return broadcastGrid.getCellSizeDeg();
+    }
+
+    private DriverLocationEvent locationEvent(Driver driver, long cellKey, double heading, double speedMps) {
+        boolean velocity = sendVelocity && !Double.isNaN(speedMps);
+        return DriverLocationEvent.builder()
+                .type(DriverLocationEvent.TYPE_LOCATION)
+                .driverId(driver.getId())
+                .lat(driver.getLat())
+                .lng(driver.getLng())
+                .status(driver.getStatus())
+                .tier(driver.getTier())
+                .cellId(GeoGrid.cellId(cellKey))
+                .heading(velocity && !Double.isNaN(heading) ? heading : null)
+                .speedMps(velocity ? speedMps : null)
+                .build();
+    }
+
+    private LocationFrame.Record frameRecord(Driver driver, int status, double heading, double speedMps, long ts) {
+        return new LocationFrame.Record(driverHandles.handleOf(driver.getId()), driver.getLat(), driver.getLng(),
+                heading, speedMps, status, LocationFrame.tierCode(driver.getTier()), ts);
+    }
+
+    /**
+     * Bearing of a move, or NaN if there is no previous position or the step is GPS noise
+     */
+    private static double headingOf(Double previousLat, Double previousLng, Driver driver) {
+        if (previousLat == null || previousLng == null
+                || GeoUtils.getDistance(previousLat, previousLng, driver.getLat(), driver.getLng())
+                        < MIN_HEADING_MOVE_KM) {
+            return Double.NaN;
+        }
+        return GeoUtils.getBearing(previousLat, previousLng, driver.getLat(), driver.getLng());
+    }
+
+    private void sendBinaryFrames(String cellId, List<LocationFrame.Record> records) {
+        for (int from = 0; from < records.size(); from += LocationFrame.MAX_RECORDS) {
+            byte[] frame = LocationFrame.encode(
+                    records.subList(from, Math.min(from + LocationFrame.MAX_RECORDS, records.size())), sendVelocity);
+            try {
+                driverCellBinarySend.record(() ->
+                        messagingTemplate.convertAndSend(BINARY_CELL_TOPIC_PREFIX + cellId, frame, BINARY_HEADERS));
+                binaryFrameBytes.record(frame.length);
+            } catch (Exception e) {
+                log.error("Error broadcasting binary driver cell update: cellId={}", cellId, e);
+            }
+        }
+    }
+
+    private DriverLocationEvent leftEvent(String driverId, long cellKey, String toCellId) {
+        return DriverLocationEvent.builder()
+                .type(DriverLocationEvent.TYPE_LEFT)
+                .driverId(driverId)
+                .cellId(GeoGrid.cellId(cellKey))
+                .toCellId(toCellId)
+                .build();
+    }
+
+    /**
+     * A driver's new position together with the position it was last broadcast at
+     *
+     * @param ts epoch millis the new position was taken
+     */
+    public record DriverMove(Driver driver, Double previousLat, Double previousLng, long ts) {
+        public DriverMove(Driver driver, Double previousLat, Double previousLng) {
+            this(driver, previousLat, previousLng, System.currentTimeMillis());
         }
     }
 }
@@ -1,8 +1,23 @@
 package com.ridehailing.util;
 
+import lombok.extern.slf4j.Slf4j;
+
+@Slf4j
 public class GeoUtils {
 
     private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double DEG_TO_RAD = Math.PI / 180;
+
+    /**
+     * Relative error bound of {@link #fastDistances} against Haversine for points
+     * up to {@link #FAST_MODE_MAX_RANGE_KM} apart, with the origin between 70 degrees
+     * south and 70 degrees north (measured worst case: 2.4e-5).
+     */
+    public static final double FAST_MODE_MAX_RELATIVE_ERROR = 1e-4;
+    public static final double FAST_MODE_MAX_RANGE_KM = 50.0;
+
+    // Optional Vector API kernel for fast mode, see VectorDistanceKernel
+    private static final FastKernel VECTOR_KERNEL = loadVectorKernel();
 
     /**
      * Calculate the distance between two geographic points using the Haversine
@@ -27,7 +42,120 @@ public class GeoUtils {
         return EARTH_RADIUS_KM * c;
     }
 
+    /**
+     * Initial great-circle bearing from point 1 to point 2.
+     *
+     * @return Degrees clockwise from north in [0, 360)
+     */
+    public static double getBearing(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = deg2rad(lat1);
+        double phi2 = deg2rad(lat2);
+        double dLon = deg2rad(lon2 - lon1);
+
+        double y = Math.sin(dLon) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+
+        double degrees = Math.toDegrees(Math.atan2(y, x));
+        return degrees < 0 ? degrees + 360.0 : degrees;
+    }
+
+    /**
+     * Precompute cos(latitude) for a set of points, for repeated calls to
+     * {@link #distances} against the same candidates.
+     */
+    public static void cosLatitudes(double[] lats, double[] cosLats, int count) {
+        for (int i = 0; i < count; i++) {
+            cosLats[i] = Math.cos(lats[i] * DEG_TO_RAD);
+        }
+    }
+
+    /**
+     * Exact Haversine distances (km) from one origin to the first {@code count}
+     * points. {@code cosLats} may hold precomputed cos(latitude) values from
+     * {@link #cosLatitudes}, or be null to compute them inline.
+     */
+    public static void distances(double originLat, double originLng, double[] lats, double[] lngs,
+            double[] cosLats, double[] out, int count) {
+        double cosOrigin = Math.cos(originLat * DEG_TO_RAD);
+        for (int i = 0; i < count; i++) {
+            double sinHalfLat = Math.sin((lats[i] - originLat) * DEG_TO_RAD * 0.5);
+            double sinHalfLng = Math.sin((lngs[i] - originLng) * DEG_TO_RAD * 0.5);
+            double cosLat = cosLats != null ? cosLats[i] : Math.cos(lats[i] * DEG_TO_RAD);
+            double a = sinHalfLat * sinHalfLat + cosOrigin * cosLat * sinHalfLng * sinHalfLng;
+            out[i] = 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+        }
+    }
+
+    /**
+     * Equirectangular distances (km) from one origin to the first {@code count}
+     * points. No trigonometry per point: the cosine of the mid latitude is
+     * approximated to first order from the origin's sine and cosine.
+     * Within {@link #FAST_MODE_MAX_RANGE_KM} the error stays under
+     * {@link #FAST_MODE_MAX_RELATIVE_ERROR}; beyond that it grows quickly, so use
+     * {@link #distances} for long ranges.
+     * Runs on the Vector API when built with -Pvector and started with
+     * -Dridehailing.geo.vector=true and --add-modules jdk.incubator.vector.
+     */
+    public static void fastDistances(double originLat, double originLng, double[] lats, double[] lngs,
+            double[] out, int count) {
+        if (VECTOR_KERNEL != null) {
+            VECTOR_KERNEL.fastDistances(originLat, originLng, lats, lngs, out, count);
+            return;
+        }
+        fastDistances(originLat, originLng, lats, lngs, out, 0, count);
+    }
+
+    /**
+     * Scalar fast-mode loop over [from, to); also the tail of the vector kernel
+     */
+    static void fastDistances(double originLat, double originLng, double[] lats, double[] lngs,
+            double[] out, int from, int to) {
+        double cosOrigin = Math.cos(originLat * DEG_TO_RAD);
+        double halfSinOrigin = 0.5 * Math.sin(originLat * DEG_TO_RAD);
+        for (int i = from; i < to; i++) {
+            double dLat = (lats[i] - originLat) * DEG_TO_RAD;
+            double dLng = lngs[i] - originLng;
+            if (dLng > 180) {
+                dLng -= 360;
+            } else if (dLng < -180) {
+                dLng += 360;
+            }
+            double x = dLng * DEG_TO_RAD * (cosOrigin - halfSinOrigin * dLat);
+            out[i] = EARTH_RADIUS_KM * Math.sqrt(x * x + dLat * dLat);
+        }
+    }
+
+    public static boolean isVectorKernelEnabled() {
+        return VECTOR_KERNEL != null;
+    }
+
     private static double deg2rad(double deg) {
         return deg * (Math.PI / 180);
     }
+
+    private static FastKernel loadVectorKernel() {
+        if (!Boolean.getBoolean("ridehailing.geo.vector")) {
+            return null;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            log.warn("ridehailing.geo.vector is set but jdk.incubator.vector is not loaded, using scalar kernel");
+            return null;
+        }
+        try {
+            return (FastKernel) Class.forName("com.ridehailing.util.VectorDistanceKernel")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ClassNotFoundException e) {
+            log.warn("ridehailing.geo.vector is set but this build has no vector kernel (build with -Pvector), "
+                    + "using scalar kernel");
+            return null;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            log.warn("Vector distance kernel unavailable, using scalar kernel", e);
+            return null;
+        }
+    }
+
+    interface FastKernel {
+        void fastDistances(double originLat, double originLng, double[] lats, double[] lngs, double[] out,
+                int count);
+    }
 }
@@ -0,0 +1,65 @@
+package com.ridehailing.wire;
+
+import com.ridehailing.geo.DriverGridIndex;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Small integer handles standing in for driver ids in binary location frames.
+ *
+ * Handles are assigned on first use and stay stable while the driver is in the
+ * grid index; clients cache handle to driver id lookups from GET /v1/drivers/handles
+ * and must refetch after reconnecting to a different node. A driver evicted from
+ * the index releases its handle and gets a new one if it comes back. Handles are
+ * never reused, so a client's cached lookup can go unresolved but never point at
+ * the wrong driver.
+ */
+@Component
+public class DriverHandles implements DriverGridIndex.Listener {
+
+    private final AtomicInteger nextHandle = new AtomicInteger(1);
+    private final ConcurrentHashMap<String, Integer> handlesById = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, String> idsByHandle = new ConcurrentHashMap<>();
+
+    public DriverHandles(DriverGridIndex driverGridIndex) {
+        driverGridIndex.addListener(this);
+    }
+
+    public int handleOf(String driverId) {
+        Integer handle = handlesById.get(driverId);
+        if (handle != null) {
+            return handle;
+        }
+        return handlesById.computeIfAbsent(driverId, id -> {
+            int assigned = nextHandle.getAndIncrement();
+            idsByHandle.put(assigned, id);
+            return assigned;
+        });
+    }
+
+    @Override
+    public void driverEvicted(String driverId) {
+        Integer handle = handlesById.remove(driverId);
+        if (handle != null) {
+            idsByHandle.remove(handle);
+        }
+    }
+
+    /**
+     * Driver ids for the given handles; handles never assigned are left out
+     */
+    public Map<Integer, String> resolve(Iterable<Integer> handles) {
+        Map<Integer, String> ids = new LinkedHashMap<>();
+        for (Integer handle : handles) {
+            String driverId = idsByHandle.get(handle);
+            if (driverId != null) {
+                ids.put(handle, driverId);
+            }
+        }
+        return ids;
+    }
+}
@@ -0,0 +1,182 @@
+package com.ridehailing.wire;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary encoding of driver location updates for one cell.
+ *
+ * Sent as application/octet-stream STOMP bodies to subscribers that asked for the
+ * binary format (see LocationSubscriptions). Big-endian, version 1:
+ *
+ * <pre>
+ * header  12 bytes  u8 version | u8 flags | u16 record count | i64 base timestamp (epoch ms)
+ * record  18 bytes  u32 driver handle
+ *                   i32 lat  (degrees * 1e6)
+ *                   i32 lng  (degrees * 1e6)
+ *                   u16 heading (tenths of a degree clockwise from north, 0xFFFF unknown)
+ *                   u8  status (0 offline, 1 online, 2 busy, 0xFE other, 0xFF left this cell)
+ *                   u8  tier (0 economy, 1 premium, 2 luxury, 0xFF other)
+ *                   u16 timestamp offset from the base (ms, saturates at 0xFFFF)
+ *         +2 bytes  u16 speed (cm/s, 0xFFFF unknown), only when flags has FLAG_VELOCITY
+ * </pre>
+ *
+ * Driver handles are small integers from DriverHandles; clients resolve new ones
+ * through GET /v1/drivers/handles. A "left" record carries the driver's new (or
+ * last known) position.
+ */
+public final class LocationFrame {
+
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 12;
+    public static final int RECORD_BYTES = 18;
+    public static final int VELOCITY_BYTES = 2;
+    public static final int MAX_RECORDS = 0xFFFF;
+
+    public static final int FLAG_VELOCITY = 0x01;
+
+    public static final int HEADING_UNKNOWN = 0xFFFF;
+    public static final int SPEED_UNKNOWN = 0xFFFF;
+
+    public static final int STATUS_OFFLINE = 0;
+    public static final int STATUS_ONLINE = 1;
+    public static final int STATUS_BUSY = 2;
+    public static final int STATUS_OTHER = 0xFE;
+    public static final int STATUS_LEFT = 0xFF;
+
+    public static final int TIER_ECONOMY = 0;
+    public static final int TIER_PREMIUM = 1;
+    public static final int TIER_LUXURY = 2;
+    public static final int TIER_OTHER = 0xFF;
+
+    private static final double COORD_SCALE = 1e6;
+
+    private LocationFrame() {
+    }
+
+    /**
+     * One driver entry of a frame
+     *
+     * @param heading  degrees clockwise from north, or NaN if unknown
+     * @param speedMps metres per second, or NaN if unknown (only sent in velocity frames)
+     */
+    public record Record(int handle, double lat, double lng, double heading, double speedMps, int status, int tier,
+            long ts) {
+    }
+
+    /**
+     * Encode up to MAX_RECORDS records into one frame without speeds
+     */
+    public static byte[] encode(List<Record> records) {
+        return encode(records, false);
+    }
+
+    /**
+     * Encode up to MAX_RECORDS records into one frame
+     */
+    public static byte[] encode(List<Record> records, boolean withVelocity) {
+        if (records.size() > MAX_RECORDS) {
+            throw new IllegalArgumentException("Too many records for one frame: " + records.size());
+        }
+        long base = Long.MAX_VALUE;
+        for (Record record : records) {
+            base = Math.min(base, record.ts());
+        }
+        if (records.isEmpty()) {
+            base = 0;
+        }
+
+        int recordBytes = RECORD_BYTES + (withVelocity ? VELOCITY_BYTES : 0);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + records.size() * recordBytes);
+        buffer.put((byte) VERSION);
+        buffer.put((byte) (withVelocity ? FLAG_VELOCITY : 0));
+        buffer.putShort((short) records.size());
+        buffer.putLong(base);
+        for (Record record : records) {
+            buffer.putInt(record.handle());
+            buffer.putInt((int) Math.round(record.lat() * COORD_SCALE));
+            buffer.putInt((int) Math.round(record.lng() * COORD_SCALE));
+            buffer.putShort((short) quantizeHeading(record.heading()));
+            buffer.put((byte) record.status());
+            buffer.put((byte) record.tier());
+            buffer.putShort((short) Math.min(record.ts() - base, 0xFFFF));
+            if (withVelocity) {
+                buffer.putShort((short) quantizeSpeed(record.speedMps()));
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decode a frame produced by {@link #encode}
+     */
+    public static List<Record> decode(byte[] frame) {
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        int version = Byte.toUnsignedInt(buffer.get());
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported location frame version: " + version);
+        }
+        boolean withVelocity = (buffer.get() & FLAG_VELOCITY) != 0;
+        int count = Short.toUnsignedInt(buffer.getShort());
+        long base = buffer.getLong();
+        int recordBytes = RECORD_BYTES + (withVelocity ? VELOCITY_BYTES : 0);
+        if (frame.length < HEADER_BYTES + count * recordBytes) {
+            throw new IllegalArgumentException("Truncated location frame");
+        }
+
+        List<Record> records = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int handle = buffer.getInt();
+            double lat = buffer.getInt() / COORD_SCALE;
+            double lng = buffer.getInt() / COORD_SCALE;
+            int heading = Short.toUnsignedInt(buffer.getShort());
+            int status = Byte.toUnsignedInt(buffer.get());
+            int tier = Byte.toUnsignedInt(buffer.get());
+            long ts = base + Short.toUnsignedInt(buffer.getShort());
+            int speed = withVelocity ? Short.toUnsignedInt(buffer.getShort()) : SPEED_UNKNOWN;
+            records.add(new Record(handle, lat, lng, heading == HEADING_UNKNOWN ? Double.NaN : heading / 10.0,
+                    speed == SPEED_UNKNOWN ? Double.NaN : speed / 100.0, status, tier, ts));
+        }
+        return records;
+    }
+
+    public static int statusCode(String status) {
+        if (status == null) {
+            return STATUS_OTHER;
+        }
+        return switch (status) {
+            case "offline" -> STATUS_OFFLINE;
+            case "online" -> STATUS_ONLINE;
+            case "busy" -> STATUS_BUSY;
+            default -> STATUS_OTHER;
+        };
+    }
+
+    public static int tierCode(String tier) {
+        if (tier == null) {
+            return TIER_OTHER;
+        }
+        return switch (tier) {
+            case "economy" -> TIER_ECONOMY;
+            case "premium" -> TIER_PREMIUM;
+            case "luxury" -> TIER_LUXURY;
+            default -> TIER_OTHER;
+        };
+    }
+
+    private static int quantizeHeading(double heading) {
+        if (Double.isNaN(heading)) {
+            return HEADING_UNKNOWN;
+        }
+        int tenths = (int) Math.round(heading * 10.0) % 3600;
+        return tenths < 0 ? tenths + 3600 : tenths;
+    }
+
+    private static int quantizeSpeed(double speedMps) {
+        if (Double.isNaN(speedMps) || speedMps < 0) {
+            return SPEED_UNKNOWN;
+        }
+        return (int) Math.min(Math.round(speedMps * 100.0), SPEED_UNKNOWN - 1);
+    }
+}
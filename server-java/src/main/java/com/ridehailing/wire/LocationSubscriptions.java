@@ -0,0 +1,102 @@
+package com.ridehailing.wire;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-subscription wire format negotiation for driver cell topics.
+ *
+ * JSON is the default. A SUBSCRIBE to /topic/drivers/cell/{cellId} with a
+ * "format: binary" header is rewritten to /topic/drivers/cell-bin/{cellId}, which
+ * carries LocationFrame bodies; clients may also subscribe to that destination
+ * directly. Binary subscriptions are counted per cell so SocketService only encodes
+ * binary frames for cells someone is listening to in that format.
+ */
+@Component
+public class LocationSubscriptions implements ChannelInterceptor {
+
+    public static final String FORMAT_HEADER = "format";
+    public static final String FORMAT_BINARY = "binary";
+
+    public static final String CELL_TOPIC_PREFIX = "/topic/drivers/cell/";
+    public static final String BINARY_CELL_TOPIC_PREFIX = "/topic/drivers/cell-bin/";
+
+    // Binary subscriptions per cell id
+    private final ConcurrentHashMap<String, Integer> binarySubscribers = new ConcurrentHashMap<>();
+
+    // Session id -> subscription id -> cell id, to undo counts on UNSUBSCRIBE and disconnect
+    private final ConcurrentHashMap<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null || accessor.getSessionId() == null) {
+            return message;
+        }
+        switch (accessor.getCommand()) {
+            case SUBSCRIBE -> subscribe(accessor);
+            case UNSUBSCRIBE -> unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+            case DISCONNECT -> disconnect(accessor.getSessionId());
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    public boolean hasBinarySubscribers(String cellId) {
+        return binarySubscribers.containsKey(cellId);
+    }
+
+    private void subscribe(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        String cellId;
+        if (destination.startsWith(BINARY_CELL_TOPIC_PREFIX)) {
+            cellId = destination.substring(BINARY_CELL_TOPIC_PREFIX.length());
+        } else if (destination.startsWith(CELL_TOPIC_PREFIX)
+                && FORMAT_BINARY.equals(accessor.getFirstNativeHeader(FORMAT_HEADER))) {
+            cellId = destination.substring(CELL_TOPIC_PREFIX.length());
+            accessor.setDestination(BINARY_CELL_TOPIC_PREFIX + cellId);
+        } else {
+            return;
+        }
+
+        String previous = sessions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), cellId);
+        if (previous != null) {
+            release(previous);
+        }
+        binarySubscribers.merge(cellId, 1, Integer::sum);
+    }
+
+    private void unsubscribe(String sessionId, String subscriptionId) {
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        if (subscriptions == null || subscriptionId == null) {
+            return;
+        }
+        String cellId = subscriptions.remove(subscriptionId);
+        if (cellId != null) {
+            release(cellId);
+        }
+    }
+
+    private void disconnect(String sessionId) {
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    private void release(String cellId) {
+        binarySubscribers.computeIfPresent(cellId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+}
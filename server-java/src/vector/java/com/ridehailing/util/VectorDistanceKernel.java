@@ -0,0 +1,37 @@
+package com.ridehailing.util;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API version of the equirectangular fast mode. Only loaded by GeoUtils when
+ * the incubator module is present and the flag is set; same math, lane-wise.
+ * Kept out of src/main so the default build needs no incubator module; compiled
+ * only with the vector profile (mvn -Pvector).
+ */
+final class VectorDistanceKernel implements GeoUtils.FastKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double DEG_TO_RAD = Math.PI / 180;
+
+    @Override
+    public void fastDistances(double originLat, double originLng, double[] lats, double[] lngs, double[] out,
+            int count) {
+        double cosOrigin = Math.cos(originLat * DEG_TO_RAD);
+        double halfSinOrigin = 0.5 * Math.sin(originLat * DEG_TO_RAD);
+
+        int i = 0;
+        int upper = SPECIES.loopBound(count);
+        for (; i < upper; i += SPECIES.length()) {
+            DoubleVector dLat = DoubleVector.fromArray(SPECIES, lats, i).sub(originLat).mul(DEG_TO_RAD);
+            DoubleVector dLng = DoubleVector.fromArray(SPECIES, lngs, i).sub(originLng);
+            dLng = dLng.sub(360, dLng.compare(VectorOperators.GT, 180))
+                    .add(360, dLng.compare(VectorOperators.LT, -180));
+            DoubleVector x = dLng.mul(DEG_TO_RAD).mul(dLat.mul(-halfSinOrigin).add(cosOrigin));
+            x.mul(x).add(dLat.mul(dLat)).sqrt().mul(EARTH_RADIUS_KM).intoArray(out, i);
+        }
+        GeoUtils.fastDistances(originLat, originLng, lats, lngs, out, i, count);
+    }
+}